@@ -1,6 +1,7 @@
 plugins {
     `java-library`
     id("org.gradlex.extra-java-module-info") version "1.4.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -44,6 +45,39 @@ tasks.withType<Test> {
     )
 }
 
+tasks.test {
+    filter {
+        excludeTestsMatching("loom.generators.GeneratorEventsTest")
+    }
+}
+
+val eventsTest by tasks.registering(Test::class) {
+    description = "Runs the tests of the JFR events with all generators instrumented."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    filter {
+        includeTestsMatching("loom.generators.GeneratorEventsTest")
+    }
+    systemProperty("loom.generators.jfr.backends", "all")
+}
+
+tasks.check {
+    dependsOn(eventsTest)
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    jvmArgs.set(listOf(
+            "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+            "--add-exports", "java.base/jdk.internal.vm=ALL-UNNAMED",
+            "--add-exports", "java.base/jdk.internal.access=ALL-UNNAMED",
+            "--enable-preview"
+    ))
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+}
+
 tasks.withType<Wrapper> {
     gradleVersion = "8.2.1"
 }
@@ -0,0 +1,15 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Param;
+
+public class BufferedRunnableGeneratorBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"16", "256"})
+    public int bufferSize;
+
+    @Override
+    Iterable<Integer> generator() {
+        return Generators.newRunnableGenerator(g -> produce(g::yield), bufferSize);
+    }
+}
@@ -0,0 +1,86 @@
+package loom.generators.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.Cleaner;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Abandons suspended generators, as a consumer which stops iterating early without closing does, and compares what
+ * it costs when every abandoned iterator is tracked by a {@link Cleaner} (a <code>PhantomReference</code>) or by a
+ * finalizer. A finalizable holder keeps the whole suspended stack reachable for another GC cycle. Run with the gc
+ * profiler, which is configured in the <code>jmh</code> block, and compare <code>gc.time</code> and
+ * <code>gc.count</code>. The thread based backends register a {@link Cleaner} of their own, so their
+ * <code>NONE</code> is not free of reference processing. Scores are ns/abandoned generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CleanupBenchmark {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final LongAdder CLEANED = new LongAdder();
+    private static final Runnable NOT_COUNTED = () -> {
+    };
+
+    public enum Cleanup {
+        NONE,
+        PHANTOM,
+        FINALIZER
+    }
+
+    @Param
+    public ScalabilityBenchmark.Backend backend;
+
+    @Param
+    public Cleanup cleanup;
+
+    @Benchmark
+    public Object abandon() {
+        Iterator<Integer> it = backend.start(NOT_COUNTED);
+        it.next();
+        return switch (cleanup) {
+            case NONE -> it;
+            case PHANTOM -> {
+                Holder holder = new Holder(it);
+                CLEANER.register(holder, CLEANED::increment);
+                yield holder;
+            }
+            case FINALIZER -> new FinalizableHolder(it);
+        };
+    }
+
+    private static class Holder {
+        final Iterator<Integer> iterator;
+
+        Holder(Iterator<Integer> iterator) {
+            this.iterator = iterator;
+        }
+    }
+
+    private static final class FinalizableHolder extends Holder {
+        FinalizableHolder(Iterator<Integer> iterator) {
+            super(iterator);
+        }
+
+        @Override
+        @SuppressWarnings({"deprecation", "removal"})
+        protected void finalize() {
+            CLEANED.increment();
+        }
+    }
+}
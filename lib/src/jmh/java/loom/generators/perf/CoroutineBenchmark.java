@@ -0,0 +1,62 @@
+package loom.generators.perf;
+
+import loom.generators.sk4is3r.Coroutine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One exchange with a {@link Coroutine} per invocation. The target adds the values it is resumed with, so the score
+ * is ns/exchange, and the {@code gc.alloc.rate.norm} metric of the gc profiler should be zero. The values are taken
+ * from a table of boxed integers, so boxing does not allocate either.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CoroutineBenchmark {
+
+    private static final Integer[] VALUES = new Integer[256];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = i;
+        }
+    }
+
+    private Coroutine<Integer, Integer> coroutine;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coroutine = new Coroutine<>(first -> {
+            int sum = first;
+            while (true) {
+                sum += Coroutine.<Integer, Integer>yield(VALUES[sum & 0xff]);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        coroutine.close();
+    }
+
+    @Benchmark
+    public Integer exchange() {
+        return coroutine.resume(VALUES[next++ & 0xff]);
+    }
+}
@@ -0,0 +1,35 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * A map and a filter stage over a generator, either fused into the producer or as nested
+ * {@link Generators#newRunnableGenerator} generators which pull from the stage below.
+ */
+public class FusedPipelineBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"FUSED", "NESTED"})
+    public String pipeline;
+
+    @Override
+    Iterable<Integer> generator() {
+        GeneratorService<Integer> source = Generators.newRunnableGenerator(g -> produce(g::yield));
+        if (pipeline.equals("FUSED")) {
+            return source.map(i -> i + 1).filter(i -> i > 0);
+        }
+        GeneratorService<Integer> mapped = Generators.newRunnableGenerator(g -> {
+            for (Integer i : source) {
+                g.yield(i + 1);
+            }
+        });
+        return Generators.newRunnableGenerator(g -> {
+            for (Integer i : mapped) {
+                if (i > 0) {
+                    g.yield(i);
+                }
+            }
+        });
+    }
+}
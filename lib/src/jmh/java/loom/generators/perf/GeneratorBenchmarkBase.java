@@ -0,0 +1,75 @@
+package loom.generators.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls one element per benchmark invocation from a generator of {@link #size} elements. A new generator is created
+ * whenever the previous one is exhausted, so creation cost is amortised over {@link #size} elements. With
+ * {@link Mode#AverageTime} the score is therefore ns/element, and the {@code gc.alloc.rate.norm} metric of the gc
+ * profiler is bytes allocated per element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public abstract class GeneratorBenchmarkBase {
+
+    /**
+     * Number of elements produced by one generator.
+     */
+    @Param({"1000", "1000000"})
+    public int size;
+
+    /**
+     * Amount of CPU work the producer performs per element, in {@link Blackhole#consumeCPU(long)} tokens.
+     */
+    @Param({"0", "64"})
+    public int work;
+
+    private Iterator<Integer> iterator;
+
+    abstract Iterable<Integer> generator();
+
+    protected final void produce(Yield yield) {
+        for (int i = 0; i < size; i++) {
+            Blackhole.consumeCPU(work);
+            yield.yield(i);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        iterator = generator().iterator();
+    }
+
+    @Benchmark
+    public Integer next() {
+        Iterator<Integer> it = iterator;
+        if (!it.hasNext()) {
+            it = iterator = generator().iterator();
+        }
+        return it.next();
+    }
+
+    @FunctionalInterface
+    protected interface Yield {
+        void yield(int value);
+    }
+}
@@ -0,0 +1,61 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import loom.generators.sk4is3r.GeneratorPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of creating, draining and tearing down short-lived generators, with and without pooling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class GeneratorPoolBenchmark {
+
+    @Param({"1", "16"})
+    public int size;
+
+    private final GeneratorPool pool = new GeneratorPool(64);
+
+    private void drain(GeneratorService<Integer> generator, Blackhole blackhole) {
+        for (Integer i : generator) {
+            blackhole.consume(i);
+        }
+    }
+
+    @Benchmark
+    public void unpooled(Blackhole blackhole) {
+        drain(Generators.newRunnableGenerator(g -> {
+            for (int i = 0; i < size; i++) {
+                g.yield(i);
+            }
+        }), blackhole);
+    }
+
+    @Benchmark
+    public void pooled(Blackhole blackhole) {
+        drain(Generators.newPooledRunnableGenerator(pool, g -> {
+            for (int i = 0; i < size; i++) {
+                g.yield(i);
+            }
+        }), blackhole);
+    }
+}
@@ -0,0 +1,63 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+import loom.generators.IntGeneratorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primitive counterpart of {@link RunnableGeneratorBenchmark}, see {@link GeneratorBenchmarkBase}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class IntGeneratorBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"0", "64"})
+    public int work;
+
+    private PrimitiveIterator.OfInt iterator;
+
+    IntGeneratorService generator() {
+        return Generators.newIntGenerator(g -> {
+            for (int i = 0; i < size; i++) {
+                Blackhole.consumeCPU(work);
+                g.yieldInt(i);
+            }
+        });
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        iterator = generator().iterator();
+    }
+
+    @Benchmark
+    public int nextInt() {
+        PrimitiveIterator.OfInt it = iterator;
+        if (!it.hasNext()) {
+            it = iterator = generator().iterator();
+        }
+        return it.nextInt();
+    }
+}
@@ -0,0 +1,10 @@
+package loom.generators.perf;
+
+import loom.generators.kelemen.GeneratorFactories;
+
+public class KelemenGeneratorBenchmark extends GeneratorBenchmarkBase {
+    @Override
+    Iterable<Integer> generator() {
+        return () -> GeneratorFactories.toIterator(g -> produce(g::accept));
+    }
+}
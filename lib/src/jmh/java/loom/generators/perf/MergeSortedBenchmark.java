@@ -0,0 +1,102 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges {@link #sources} sorted generators of {@link #TOTAL} elements in total, whose elements interleave
+ * perfectly, so every element is the last one of its run for a while. Compares
+ * {@link Generators#mergeSorted}, {@link Generators#mergeSortedByKey} and a {@link PriorityQueue} of iterator heads.
+ * Scores are ns/element, including the creation of the generators.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+@OperationsPerInvocation(MergeSortedBenchmark.TOTAL)
+public class MergeSortedBenchmark {
+
+    static final int TOTAL = 1_000_000;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int sources;
+
+    @Param({"LOSER_TREE", "LONG_KEY", "PRIORITY_QUEUE"})
+    public String merge;
+
+    private List<GeneratorService<Long>> runs() {
+        int k = sources;
+        int perRun = TOTAL / k;
+        List<GeneratorService<Long>> runs = new ArrayList<>(k);
+        for (int r = 0; r < k; r++) {
+            long run = r;
+            runs.add(Generators.newRunnableGenerator(y -> {
+                for (long i = 0; i < perRun; i++) {
+                    y.yield(i * k + run);
+                }
+            }));
+        }
+        return runs;
+    }
+
+    @Benchmark
+    public void merge(Blackhole blackhole) {
+        Iterable<Long> merged = switch (merge) {
+            case "LOSER_TREE" -> Generators.mergeSorted(Comparator.naturalOrder(), runs());
+            case "LONG_KEY" -> Generators.mergeSortedByKey(Long::longValue, runs());
+            default -> priorityQueueMerge(runs());
+        };
+        for (Long value : merged) {
+            blackhole.consume(value);
+        }
+    }
+
+    private record Head(Long value, Iterator<Long> run) {
+    }
+
+    private static Iterable<Long> priorityQueueMerge(List<GeneratorService<Long>> runs) {
+        PriorityQueue<Head> queue = new PriorityQueue<>(Math.max(1, runs.size()), Comparator.comparing(Head::value));
+        for (GeneratorService<Long> run : runs) {
+            Iterator<Long> it = run.iterator();
+            if (it.hasNext()) {
+                queue.add(new Head(it.next(), it));
+            }
+        }
+        return () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Long next() {
+                Head head = queue.poll();
+                if (head.run().hasNext()) {
+                    queue.add(new Head(head.run().next(), head.run()));
+                }
+                return head.value();
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+import loom.generators.mvysny.ContinuationInvoker;
+import org.openjdk.jmh.annotations.Param;
+
+public class MvysnyGeneratorBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"QUEUE", "DIRECT"})
+    public ContinuationInvoker.Mode mode;
+
+    @Override
+    Iterable<Integer> generator() {
+        return Generators.newMvySnyGenerator(g -> produce(g::yield), mode);
+    }
+}
@@ -0,0 +1,29 @@
+package loom.generators.perf;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class NoGeneratorBenchmark extends GeneratorBenchmarkBase {
+    @Override
+    Iterable<Integer> generator() {
+        return () -> new Iterator<>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Blackhole.consumeCPU(work);
+                return i++;
+            }
+        };
+    }
+}
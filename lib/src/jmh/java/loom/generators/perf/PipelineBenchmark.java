@@ -0,0 +1,78 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link #SIZE} elements through parse, enrich and serialize stages, each of which spends {@link #work} tokens of
+ * {@link Blackhole#consumeCPU(long)} per element, and enrich twice as many. <code>LOCKSTEP</code> chains the stages
+ * with {@link GeneratorService#map} on the consumer thread, <code>PIPELINE</code> runs each stage on a thread of its
+ * own and <code>FAN_OUT</code> additionally runs enrich on as many threads as there are cores. Scores are
+ * ns/element, the speedup depends on the number of cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+@OperationsPerInvocation(PipelineBenchmark.SIZE)
+public class PipelineBenchmark {
+
+    static final int SIZE = 100_000;
+
+    @Param({"0", "100", "1000"})
+    public int work;
+
+    @Param({"LOCKSTEP", "PIPELINE", "FAN_OUT"})
+    public String mode;
+
+    private GeneratorService<Integer> source() {
+        return Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < SIZE; i++) {
+                y.yield(i);
+            }
+        });
+    }
+
+    private Integer stage(Integer value, int tokens) {
+        Blackhole.consumeCPU(tokens);
+        return value;
+    }
+
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        int enrichThreads = Runtime.getRuntime().availableProcessors();
+        GeneratorService<Integer> elements = switch (mode) {
+            case "LOCKSTEP" -> source()
+                    .map(i -> stage(i, work))
+                    .map(i -> stage(i, 2 * work))
+                    .map(i -> stage(i, work));
+            case "PIPELINE" -> Generators.pipeline(source())
+                    .map("parse", i -> stage(i, work))
+                    .map("enrich", i -> stage(i, 2 * work))
+                    .map("serialize", i -> stage(i, work));
+            default -> Generators.pipeline(source())
+                    .map("parse", i -> stage(i, work))
+                    .map("enrich", enrichThreads, i -> stage(i, 2 * work))
+                    .map("serialize", i -> stage(i, work));
+        };
+        for (Integer element : elements) {
+            blackhole.consume(element);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Producer and consumer work only overlap if the benchmark runs on more than one core.
+ */
+public class PrefetchingGeneratorBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"16", "256"})
+    public int lookahead;
+
+    @Override
+    Iterable<Integer> generator() {
+        return Generators.prefetching(g -> produce(g::yield), lookahead);
+    }
+}
@@ -0,0 +1,127 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a whole generator to a subscriber which requests {@link #batch} elements at a time, either through
+ * {@link Generators#toPublisher} or through a {@link SubmissionPublisher} fed by a thread per subscription, which
+ * blocks whenever the subscriber lags behind. Both deliver on the same single thread executor. Scores are
+ * ns/element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+@OperationsPerInvocation(PublisherBenchmark.SIZE)
+public class PublisherBenchmark {
+
+    static final int SIZE = 100_000;
+
+    @Param({"1", "256"})
+    public int batch;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static GeneratorService<Integer> generator() {
+        return Generators.newRunnableGenerator(g -> {
+            for (int i = 0; i < SIZE; i++) {
+                g.yield(i);
+            }
+        });
+    }
+
+    @Benchmark
+    public void generatorPublisher(Blackhole blackhole) throws InterruptedException {
+        BatchSubscriber subscriber = new BatchSubscriber(batch, blackhole);
+        Generators.toPublisher(generator(), executor).subscribe(subscriber);
+        subscriber.done.await();
+    }
+
+    @Benchmark
+    public void queueBridge(Blackhole blackhole) throws InterruptedException {
+        BatchSubscriber subscriber = new BatchSubscriber(batch, blackhole);
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, Flow.defaultBufferSize());
+        publisher.subscribe(subscriber);
+        Thread.startVirtualThread(() -> {
+            try (publisher) {
+                for (Integer i : generator()) {
+                    publisher.submit(i);
+                }
+            }
+        });
+        subscriber.done.await();
+    }
+
+    private static final class BatchSubscriber implements Flow.Subscriber<Integer> {
+        private final int batch;
+        private final Blackhole blackhole;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private int remaining;
+
+        BatchSubscriber(int batch, Blackhole blackhole) {
+            this.batch = batch;
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            remaining = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            blackhole.consume(item);
+            if (--remaining == 0) {
+                remaining = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares consuming a whole generator by pulling ({@code hasNext}/{@code next}) with internal iteration
+ * ({@code forEach}), which runs the producer without suspending. Scores are ns/element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+@OperationsPerInvocation(PushModeBenchmark.SIZE)
+public class PushModeBenchmark {
+
+    static final int SIZE = 100_000;
+
+    private static GeneratorService<Integer> generator() {
+        return Generators.newRunnableGenerator(g -> {
+            for (int i = 0; i < SIZE; i++) {
+                g.yield(i);
+            }
+        });
+    }
+
+    @Benchmark
+    public void pull(Blackhole blackhole) {
+        for (Integer i : generator()) {
+            blackhole.consume(i);
+        }
+    }
+
+    @Benchmark
+    public void push(Blackhole blackhole) {
+        generator().forEach(blackhole::consume);
+    }
+}
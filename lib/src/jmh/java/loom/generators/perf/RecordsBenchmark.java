@@ -0,0 +1,93 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import loom.generators.MappedRecord;
+import loom.generators.RecordFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the lines of a file of {@link #LINES} lines of 20 to 80 chars, through {@link Generators#records} and
+ * through a runnable generator yielding the lines of a {@link BufferedReader}. Every line is consumed by reading its
+ * length and last char. Scores are ns/line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(RecordsBenchmark.LINES)
+public class RecordsBenchmark {
+
+    static final int LINES = 1_000_000;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("records", ".txt");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < LINES; i++) {
+                out.write("line " + i + " " + "x".repeat(14 + i % 60) + "\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) {
+        for (MappedRecord record : Generators.records(file, RecordFormat.LINES)) {
+            blackhole.consume(record.charAt(record.length() - 1));
+        }
+    }
+
+    @Benchmark
+    public void mappedCopy(Blackhole blackhole) {
+        for (MappedRecord record : Generators.records(file, RecordFormat.LINES)) {
+            blackhole.consume(record.copy());
+        }
+    }
+
+    @Benchmark
+    public void bufferedReader(Blackhole blackhole) {
+        GeneratorService<String> lines = Generators.newRunnableGenerator(y -> {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    y.yield(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        for (String line : lines) {
+            blackhole.consume(line.charAt(line.length() - 1));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package loom.generators.perf;
+
+import loom.generators.kelemen.GeneratorFactories;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Compare with {@link KelemenGeneratorBenchmark}, which hands the elements over through a jtrim queue.
+ */
+public class RingBufferGeneratorBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"1", "64", "1024"})
+    public int capacity;
+
+    @Override
+    Iterable<Integer> generator() {
+        return () -> GeneratorFactories.toRingBufferIterator(g -> produce(g::accept), capacity);
+    }
+}
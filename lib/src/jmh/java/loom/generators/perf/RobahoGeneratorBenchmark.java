@@ -0,0 +1,15 @@
+package loom.generators.perf;
+
+import loom.generators.robaho.Generator;
+import org.openjdk.jmh.annotations.Param;
+
+public class RobahoGeneratorBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"SEMAPHORE", "EXCHANGER"})
+    public Generator.Mode mode;
+
+    @Override
+    Iterable<Integer> generator() {
+        return new Generator<>(g -> produce(g::yield), mode);
+    }
+}
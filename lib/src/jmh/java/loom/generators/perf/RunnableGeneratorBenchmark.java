@@ -0,0 +1,10 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+
+public class RunnableGeneratorBenchmark extends GeneratorBenchmarkBase {
+    @Override
+    Iterable<Integer> generator() {
+        return Generators.newRunnableGenerator(g -> produce(g::yield));
+    }
+}
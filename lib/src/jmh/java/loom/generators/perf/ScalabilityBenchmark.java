@@ -0,0 +1,151 @@
+package loom.generators.perf;
+
+import loom.generators.Generators;
+import loom.generators.kelemen.GeneratorFactories;
+import loom.generators.mvysny.ContinuationInvoker;
+import loom.generators.robaho.Generator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@link #count} generators alive, each suspended after its first element, and resumes a random one per
+ * invocation. The score is ns/resume, which includes the cache misses of touching a cold stack. The auxiliary
+ * counters report the retained heap per suspended generator and the live threads: the platform threads of the JVM
+ * plus the producers which run on a thread of their own, virtual threads being invisible to the thread MXBean.
+ * <p>
+ * The large counts need a large heap, e.g. <code>-Xmx16g</code> in the <code>jvmArgs</code> of the <code>jmh</code>
+ * block, otherwise their setup fails with an {@link OutOfMemoryError} and JMH moves on to the next parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalabilityBenchmark {
+
+    public enum Backend {
+        RUNNABLE {
+            @Override
+            Iterator<Integer> start(Runnable started) {
+                return Generators.<Integer>newRunnableGenerator(g -> produce(g::yield, started)).iterator();
+            }
+        },
+        MVYSNY {
+            @Override
+            Iterator<Integer> start(Runnable started) {
+                return Generators.<Integer>newMvySnyGenerator(g -> produce(g::yield, started),
+                        ContinuationInvoker.Mode.DIRECT).iterator();
+            }
+        },
+        ROBAHO {
+            @Override
+            Iterator<Integer> start(Runnable started) {
+                // the producer must stop when yield returns false, once the iterator was closed or cleaned
+                return new Generator<Integer>(g -> {
+                    started.run();
+                    for (int i = 0; g.yield(i); i++) {
+                    }
+                }).iterator();
+            }
+        },
+        KELEMEN {
+            @Override
+            Iterator<Integer> start(Runnable started) {
+                return GeneratorFactories.toIterator(g -> produce(g::accept, started));
+            }
+        };
+
+        /**
+         * Returns an iterator of a new generator of an unbounded sequence, whose producer runs <code>started</code>
+         * before its first element.
+         */
+        abstract Iterator<Integer> start(Runnable started);
+
+        private static void produce(GeneratorBenchmarkBase.Yield yield, Runnable started) {
+            started.run();
+            for (int i = 0; ; i++) {
+                yield.yield(i);
+            }
+        }
+    }
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int count;
+
+    @Param
+    public Backend backend;
+
+    private Iterator<Integer>[] generators;
+    /*
+     * Shares of the measurement iterations, see Footprint.
+     */
+    private double heapBytesPerGenerator;
+    private double liveThreads;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp(BenchmarkParams params) {
+        long before = usedHeap();
+        Thread consumer = Thread.currentThread();
+        LongAdder producerThreads = new LongAdder();
+        Runnable started = () -> {
+            if (Thread.currentThread() != consumer) {
+                producerThreads.increment();
+            }
+        };
+        generators = new Iterator[count];
+        for (int i = 0; i < count; i++) {
+            Iterator<Integer> it = backend.start(started);
+            it.next();
+            generators[i] = it;
+        }
+        int iterations = params.getMeasurement().getCount();
+        heapBytesPerGenerator = (double) (usedHeap() - before) / count / iterations;
+        liveThreads = (double) (ManagementFactory.getThreadMXBean().getThreadCount() + producerThreads.sum())
+                / iterations;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * JMH resets the counters after the setup of an iteration, so the benchmark stores them while measuring. The
+     * counters of the measurement iterations are summed, so every iteration stores its share.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double heapBytesPerGenerator;
+        public double liveThreads;
+    }
+
+    @Benchmark
+    public Integer resumeRandom(Footprint footprint) {
+        footprint.heapBytesPerGenerator = heapBytesPerGenerator;
+        footprint.liveThreads = liveThreads;
+        return generators[ThreadLocalRandom.current().nextInt(count)].next();
+    }
+}
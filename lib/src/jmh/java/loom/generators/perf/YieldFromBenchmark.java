@@ -0,0 +1,39 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * A chain of <code>depth</code> generators, each one yielding all elements of the next one, either through
+ * {@link Generators.Yieldable#yieldFrom} or by pulling and re-yielding every element.
+ */
+public class YieldFromBenchmark extends GeneratorBenchmarkBase {
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    @Param({"true", "false"})
+    public boolean yieldFrom;
+
+    @Override
+    Iterable<Integer> generator() {
+        return chain(depth);
+    }
+
+    private GeneratorService<Integer> chain(int remaining) {
+        if (remaining == 0) {
+            return Generators.newRunnableGenerator(g -> produce(g::yield));
+        }
+        return Generators.newRunnableGenerator(g -> {
+            GeneratorService<Integer> inner = chain(remaining - 1);
+            if (yieldFrom) {
+                g.yieldFrom(inner);
+            } else {
+                for (Integer i : inner) {
+                    g.yield(i);
+                }
+            }
+        });
+    }
+}
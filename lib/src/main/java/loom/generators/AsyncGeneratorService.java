@@ -0,0 +1,9 @@
+package loom.generators;
+
+public interface AsyncGeneratorService<T> {
+
+    /**
+     * Returns a new iterator which runs the producer from the start.
+     */
+    AsyncIterator<T> asyncIterator();
+}
@@ -0,0 +1,24 @@
+package loom.generators;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Iterator over an asynchronous generator. The elements are never <code>null</code>.
+ */
+public interface AsyncIterator<T> extends AutoCloseable {
+
+    /**
+     * Requests the next element. Must not be called again before the returned stage is complete.
+     *
+     * @return a stage completed with the next element, with <code>null</code> if the generator is exhausted or
+     *         closed, or exceptionally with the exception of the producer.
+     */
+    CompletionStage<T> nextAsync();
+
+    /**
+     * Unwinds the suspended producer, see {@link GeneratorIterator#close()}. A pending {@link #nextAsync()}
+     * completes with <code>null</code>.
+     */
+    @Override
+    void close();
+}
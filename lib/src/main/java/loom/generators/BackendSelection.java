@@ -0,0 +1,149 @@
+package loom.generators;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Chooses the backend of {@link Generators#newGenerator}. Every backend is probed by running a small generator on
+ * it, and the available backend with the lowest cost in the calibration table is chosen, unless the system property
+ * {@value #BACKEND_PROPERTY} names an available one. The table is the resource {@value #CALIBRATION_RESOURCE} next to
+ * this class, whose entries are overridden by the properties file named by {@value #CALIBRATION_PROPERTY}. The
+ * choice is made when the first generator is created and reported once to the logger of {@link Generators}.
+ */
+final class BackendSelection {
+    static final String BACKEND_PROPERTY = "loom.generators.backend";
+    static final String CALIBRATION_PROPERTY = "loom.generators.backend.calibration";
+    private static final String CALIBRATION_RESOURCE = "backend-calibration.properties";
+
+    private static final System.Logger LOGGER = System.getLogger(Generators.class.getName());
+
+    private BackendSelection() {
+    }
+
+    static GeneratorBackend selected() {
+        return Holder.SELECTED;
+    }
+
+    private static final class Holder {
+        static final GeneratorBackend SELECTED = selectAndReport();
+    }
+
+    private static GeneratorBackend selectAndReport() {
+        Map<GeneratorBackend, Throwable> unavailable = new EnumMap<>(GeneratorBackend.class);
+        for (GeneratorBackend backend : GeneratorBackend.values()) {
+            Throwable failure = probe(backend);
+            if (failure != null) {
+                unavailable.put(backend, failure);
+            }
+        }
+        Map<GeneratorBackend, Double> costs = calibration();
+        GeneratorBackend selected = fastest(costs, unavailable.keySet());
+        String forced = System.getProperty(BACKEND_PROPERTY);
+        if (forced != null) {
+            try {
+                GeneratorBackend backend = GeneratorBackend.valueOf(forced.trim());
+                if (unavailable.containsKey(backend)) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Generator backend " + backend + " of " + BACKEND_PROPERTY
+                            + " is not available, using " + selected, unavailable.get(backend));
+                } else {
+                    selected = backend;
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Unknown generator backend " + forced + " of "
+                        + BACKEND_PROPERTY + ", using " + selected);
+            }
+        }
+        StringBuilder report = new StringBuilder("Generators use the ").append(selected).append(" backend");
+        if (!unavailable.isEmpty()) {
+            report.append(", not available:");
+            unavailable.forEach((backend, failure) -> report.append(' ').append(backend).append(" (").append(failure)
+                    .append(')'));
+        }
+        LOGGER.log(System.Logger.Level.INFO, report.toString());
+        return selected;
+    }
+
+    /**
+     * Runs a generator of two elements on <code>backend</code>.
+     *
+     * @return why the backend does not work, or <code>null</code> if it does.
+     */
+    static Throwable probe(GeneratorBackend backend) {
+        try {
+            Iterator<Integer> it = GeneratorBuilders.<Integer>newGenerator(backend, y -> {
+                y.yield(1);
+                y.yield(2);
+            }).iterator();
+            if (it.hasNext() && it.next() == 1 && it.hasNext() && it.next() == 2 && !it.hasNext()) {
+                return null;
+            }
+            return new IllegalStateException("unexpected elements");
+        } catch (RuntimeException | LinkageError e) {
+            return e;
+        }
+    }
+
+    /**
+     * Returns the available backend with the lowest cost. Backends without a cost come last, and
+     * {@link GeneratorBackend#VIRTUAL_THREAD} is returned if none is available.
+     */
+    static GeneratorBackend fastest(Map<GeneratorBackend, Double> costs, Set<GeneratorBackend> unavailable) {
+        GeneratorBackend fastest = null;
+        double lowest = Double.POSITIVE_INFINITY;
+        for (GeneratorBackend backend : GeneratorBackend.values()) {
+            double cost = costs.getOrDefault(backend, Double.POSITIVE_INFINITY);
+            if (!unavailable.contains(backend) && (fastest == null || cost < lowest)) {
+                fastest = backend;
+                lowest = cost;
+            }
+        }
+        return fastest != null ? fastest : GeneratorBackend.VIRTUAL_THREAD;
+    }
+
+    /**
+     * Reads the cost per element of the backends, in ns.
+     */
+    static Map<GeneratorBackend, Double> calibration() {
+        Properties properties = new Properties();
+        try (InputStream in = BackendSelection.class.getResourceAsStream(CALIBRATION_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot read " + CALIBRATION_RESOURCE, e);
+        }
+        String file = System.getProperty(CALIBRATION_PROPERTY);
+        if (file != null) {
+            try (Reader in = Files.newBufferedReader(Path.of(file))) {
+                properties.load(in);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Cannot read " + file + " of " + CALIBRATION_PROPERTY, e);
+            }
+        }
+        return costs(properties);
+    }
+
+    static Map<GeneratorBackend, Double> costs(Properties properties) {
+        Map<GeneratorBackend, Double> costs = new EnumMap<>(GeneratorBackend.class);
+        for (GeneratorBackend backend : GeneratorBackend.values()) {
+            String value = properties.getProperty(backend.name());
+            if (value != null) {
+                try {
+                    costs.put(backend, Double.parseDouble(value.trim()));
+                } catch (NumberFormatException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Invalid cost of generator backend " + backend + ": "
+                            + value);
+                }
+            }
+        }
+        return costs;
+    }
+}
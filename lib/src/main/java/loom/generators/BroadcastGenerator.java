@@ -0,0 +1,191 @@
+package loom.generators;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a single iterator of the source between any number of consumers, each of which iterates with its own
+ * cursor. Pulled elements are appended to a linked list of fixed size segments. The source is only pulled when a
+ * cursor reaches the end of the list, so the producer never runs ahead of the fastest consumer. Only the cursors
+ * reference the segments behind the last one, so a segment becomes garbage once the slowest cursor has left it and
+ * the memory held is bounded by the spread between the slowest and the fastest consumer.
+ * <p>
+ * Consumers may run on different threads. Pulling the source is serialised by a lock, reading elements which are
+ * already buffered is lock-free.
+ */
+class BroadcastGenerator<T> implements GeneratorService<T> {
+    private final GeneratorService<T> source;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /*
+     * Guarded by the lock, except for the volatile fields, which are only written while holding it.
+     */
+    private GeneratorIterator<T> iterator;
+    private Segment tail;
+    /**
+     * Number of elements appended so far.
+     */
+    private volatile long count;
+    private volatile boolean done;
+    private Throwable failure;
+    private int openCursors;
+
+    BroadcastGenerator(GeneratorService<T> source, int segmentSize) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.segmentSize = segmentSize;
+        this.tail = new Segment(0);
+    }
+
+    /**
+     * Returns a new cursor which starts at the next element to be pulled from the source, so cursors created before
+     * the first element is pulled see all elements. The source is closed once every cursor was closed or exhausted,
+     * cursors created afterwards are empty.
+     */
+    @Override
+    public GeneratorIterator<T> iterator() {
+        lock.lock();
+        try {
+            openCursors++;
+            return new Cursor(tail, count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pulls the element at <code>position</code> from the source unless another cursor did already.
+     *
+     * @return <code>false</code> if the source is exhausted.
+     */
+    private boolean pull(long position) {
+        lock.lock();
+        try {
+            if (position < count) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            if (iterator == null) {
+                iterator = source.closeableIterator();
+            }
+            try {
+                if (!iterator.hasNext()) {
+                    done = true;
+                    return false;
+                }
+                T element = iterator.next();
+                Segment segment = tail;
+                int offset = (int) (position - segment.base);
+                if (offset == segmentSize) {
+                    segment = new Segment(position);
+                    tail.next = segment;
+                    tail = segment;
+                    offset = 0;
+                }
+                segment.elements[offset] = element;
+                // publishes the element and the link to its segment
+                count = position + 1;
+                return true;
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                done = true;
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        GeneratorIterator<T> it = null;
+        lock.lock();
+        try {
+            if (--openCursors == 0 && !done) {
+                done = true;
+                it = iterator;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (it != null) {
+            it.close();
+        }
+    }
+
+    private final class Segment {
+        /**
+         * Position of the first element of the segment.
+         */
+        private final long base;
+        private final Object[] elements = new Object[segmentSize];
+        private volatile Segment next;
+
+        Segment(long base) {
+            this.base = base;
+        }
+    }
+
+    private final class Cursor implements GeneratorIterator<T> {
+        private Segment segment;
+        private long position;
+        private boolean closed;
+
+        Cursor(Segment segment, long position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (position < count || pull(position)) {
+                return true;
+            }
+            close();
+            // written before done, which pull() read while holding the lock
+            Throwable e = failure;
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e != null) {
+                throw (Error) e;
+            }
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Segment s = segment;
+            int offset = (int) (position - s.base);
+            if (offset == segmentSize) {
+                s = segment = s.next;
+                offset = 0;
+            }
+            position++;
+            @SuppressWarnings("unchecked")
+            T element = (T) s.elements[offset];
+            return element;
+        }
+
+        /**
+         * Detaches the cursor, so it no longer holds any segment.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment = null;
+            release();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package loom.generators;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+public interface DoubleGeneratorService extends GeneratorService<Double> {
+
+    @Override
+    PrimitiveIterator.OfDouble iterator();
+
+    default void forEachDouble(DoubleConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    default DoubleStream doubleStream() {
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false);
+    }
+}
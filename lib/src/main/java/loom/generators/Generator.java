@@ -10,9 +10,16 @@ public abstract class Generator<T> implements Supplier<T> {
     private static final ContinuationScope continuationScope = new ContinuationScope("Generator");
     private final Continuation continuation;
     private T next;
+    private Continuation.Pinned pinnedReason;
 
     public Generator() {
-        continuation = new Continuation(continuationScope, this::run);
+        continuation = new Continuation(continuationScope, this::run) {
+            @Override
+            protected void onPinned(Pinned reason) {
+                // yield returns false and fails with the reason
+                pinnedReason = reason;
+            }
+        };
     }
 
     protected abstract void run();
@@ -25,7 +32,10 @@ public abstract class Generator<T> implements Supplier<T> {
 
     protected final void yield(T value) {
         next = value;
-        Continuation.yield(continuationScope);
+        if (!Continuation.yield(continuationScope)) {
+            GeneratorMetrics.PINNED_YIELDS.increment();
+            throw new IllegalStateException("Cannot yield while run() is pinned: " + pinnedReason);
+        }
     }
 
 }
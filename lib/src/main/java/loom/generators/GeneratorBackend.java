@@ -0,0 +1,24 @@
+package loom.generators;
+
+/**
+ * The ways {@link Generators#newGenerator} can run a producer. The backends differ in speed and in what the JVM must
+ * allow, so the fastest one which works in the running JVM is chosen once, see {@link Generators#backend()}.
+ */
+public enum GeneratorBackend {
+    /**
+     * Runs the producer on a <code>jdk.internal.vm.Continuation</code> as
+     * {@link Generators#newRunnableGenerator(java.util.function.Consumer)} does. Needs
+     * <code>--add-exports java.base/jdk.internal.vm=loom.generators</code>.
+     */
+    CONTINUATION,
+    /**
+     * Runs the producer on a virtual thread whose scheduler runs it on the thread of the consumer, as
+     * {@link Generators#newMvySnyGenerator} does. Needs <code>--add-opens java.base/java.lang=loom.generators</code>.
+     */
+    CUSTOM_SCHEDULER,
+    /**
+     * Runs the producer on a virtual thread of the default scheduler, ahead of the consumer by a few elements, as
+     * {@link Generators#prefetching} does. Works in every JVM.
+     */
+    VIRTUAL_THREAD
+}
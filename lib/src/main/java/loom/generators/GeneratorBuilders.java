@@ -5,30 +5,435 @@ import loom.generators.kelemen.GeneratorFactories;
 import loom.generators.mvysny.ContinuationInvoker;
 import loom.generators.mvysny.Coroutine;
 import loom.generators.robaho.Generator;
+import loom.generators.sk4is3r.AsyncGenerator;
+import loom.generators.sk4is3r.DoubleGenerator;
+import loom.generators.sk4is3r.GeneratorPool;
+import loom.generators.sk4is3r.IntGenerator;
+import loom.generators.sk4is3r.LongGenerator;
 import loom.generators.sk4is3r.RunnableGenerator;
 
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 class GeneratorBuilders {
 
+    /**
+     * Pool used by {@link Generators#newPooledRunnableGenerator(Consumer)}.
+     */
+    private static final GeneratorPool POOL = new GeneratorPool(Runtime.getRuntime().availableProcessors() * 8);
+
+    /**
+     * Number of elements {@link #yieldFrom(Generators.Yieldable, GeneratorService)} pulls from an inner generator
+     * before yielding them.
+     */
+    private static final int YIELD_FROM_BATCH = 64;
+
+    /**
+     * Segment size used by {@link Generators#broadcast(GeneratorService)}.
+     */
+    static final int BROADCAST_SEGMENT_SIZE = 256;
+
+    /**
+     * Largest chunk of the caches of {@link Generators#memoized}, the unit in which elements are evicted.
+     */
+    private static final int MEMOIZED_CHUNK_SIZE = 256;
+
+    /**
+     * Number of elements the producer of a {@link GeneratorBackend#VIRTUAL_THREAD} generator runs ahead.
+     */
+    private static final int VIRTUAL_THREAD_LOOKAHEAD = 16;
+
+    static <T> GeneratorService<T> newGenerator(GeneratorBackend backend, Consumer<Generators.Yieldable<T>> task) {
+        Objects.requireNonNull(task, "task");
+        return switch (backend) {
+            case CONTINUATION -> newRunnableGenerator(task);
+            case CUSTOM_SCHEDULER -> new CustomSchedulerGeneratorImpl<>(task);
+            case VIRTUAL_THREAD -> new PrefetchingGeneratorImpl<>(task, VIRTUAL_THREAD_LOOKAHEAD);
+        };
+    }
+
     static <T> GeneratorService<T> newKelemenGenerator(ForEachable<T> forEachable) {
         return new KelemenGeneratorImpl<>(forEachable);
     }
 
+    static <T> GeneratorService<T> newRingBufferGenerator(ForEachable<T> forEachable, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        return new RingBufferGeneratorImpl<>(forEachable, capacity);
+    }
+
+    static <T> GeneratorService<T> prefetching(Consumer<Generators.Yieldable<T>> task, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be positive: " + lookahead);
+        }
+        return new PrefetchingGeneratorImpl<>(task, lookahead);
+    }
+
     static <T> GeneratorService<T> newMySnyGenerator(Consumer<Coroutine.Yielder<T>> generator) {
-        return new MySnyGeneratorImpl<>(generator);
+        return new MySnyGeneratorImpl<>(generator, ContinuationInvoker.Mode.QUEUE);
+    }
+
+    static <T> GeneratorService<T> newMySnyGenerator(Consumer<Coroutine.Yielder<T>> generator,
+                                                     ContinuationInvoker.Mode mode) {
+        return new MySnyGeneratorImpl<>(generator, Objects.requireNonNull(mode));
     }
 
     static <T> GeneratorService<T> newRobahoGenerator(loom.generators.robaho.Generator.Producer<T> producer) {
-        return new RobahoGeneratorImpl<>(producer);
+        return new RobahoGeneratorImpl<>(producer, Generator.Mode.SEMAPHORE);
+    }
+
+    static <T> GeneratorService<T> newRobahoGenerator(loom.generators.robaho.Generator.Producer<T> producer,
+                                                      Generator.Mode mode) {
+        return new RobahoGeneratorImpl<>(producer, Objects.requireNonNull(mode));
+    }
+
+    static <T> GeneratorService<T> newRunnableGenerator(Consumer<Generators.Yieldable<T>> task) {
+        return new RunnableGeneratorImpl<>(task, 0);
+    }
+
+    static <T> GeneratorService<T> newRunnableGenerator(Consumer<Generators.Yieldable<T>> task, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        return new RunnableGeneratorImpl<>(task, bufferSize);
+    }
+
+    static <T> GeneratorService<T> newPooledRunnableGenerator(Consumer<Generators.Yieldable<T>> task) {
+        return new PooledRunnableGeneratorImpl<>(POOL, task);
+    }
+
+    static <T> GeneratorService<T> newPooledRunnableGenerator(GeneratorPool pool,
+                                                              Consumer<Generators.Yieldable<T>> task) {
+        return new PooledRunnableGeneratorImpl<>(Objects.requireNonNull(pool), task);
+    }
+
+    static <T> AsyncGeneratorService<T> newAsyncGenerator(Consumer<Generators.AsyncYieldable<T>> task) {
+        return new AsyncGeneratorImpl<>(Objects.requireNonNull(task));
+    }
+
+    static <T> Flow.Publisher<T> toPublisher(GeneratorService<T> generator, Executor executor) {
+        return new GeneratorPublisher<>(generator, executor);
+    }
+
+    static <T> GeneratorService<T> broadcast(GeneratorService<T> source, int segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("segmentSize must be positive: " + segmentSize);
+        }
+        return new BroadcastGenerator<>(source, segmentSize);
+    }
+
+    static <T> GeneratorService<T> mergeSorted(Comparator<? super T> comparator, ToLongFunction<? super T> key,
+                                               List<? extends GeneratorService<? extends T>> sources) {
+        return new SortedMergeGenerator<>(sources, comparator, key);
+    }
+
+    static <T> GeneratorService<T> memoized(Supplier<? extends GeneratorService<T>> source, int maxCached) {
+        return new MemoizedGenerator.OfObject<>(source, maxCached, memoizedChunkSize(maxCached));
+    }
+
+    static IntGeneratorService memoizedInts(Supplier<? extends IntGeneratorService> source, int maxCached) {
+        return new MemoizedGenerator.OfInt(source, maxCached, memoizedChunkSize(maxCached));
+    }
+
+    private static int memoizedChunkSize(int maxCached) {
+        if (maxCached < 0) {
+            throw new IllegalArgumentException("maxCached must not be negative: " + maxCached);
+        }
+        return Math.max(1, Math.min(MEMOIZED_CHUNK_SIZE, maxCached));
+    }
+
+    static <T> Pipeline<T> pipeline(GeneratorService<T> source) {
+        return Pipeline.of(source);
+    }
+
+    static GeneratorService<MappedRecord> records(Path path, RecordFormat format, int windowSize) {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(format, "format");
+        return newRunnableGenerator(y -> new MappedRecordReader(path, format, windowSize).accept(y));
+    }
+
+    static Executor defaultPublisherExecutor() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1
+                ? ForkJoinPool.commonPool()
+                : command -> Thread.ofVirtual().start(command);
+    }
+
+    static IntGeneratorService newIntGenerator(Consumer<Generators.IntYieldable> task) {
+        return new IntGeneratorImpl(task);
+    }
+
+    static LongGeneratorService newLongGenerator(Consumer<Generators.LongYieldable> task) {
+        return new LongGeneratorImpl(task);
+    }
+
+    static DoubleGeneratorService newDoubleGenerator(Consumer<Generators.DoubleYieldable> task) {
+        return new DoubleGeneratorImpl(task);
+    }
+
+    static <T> GeneratorService<T> withHints(GeneratorService<T> generator, long size, int characteristics) {
+        return new HintedGeneratorImpl<>(Objects.requireNonNull(generator), size, characteristics);
+    }
+
+    static <T, R> GeneratorService<R> map(GeneratorService<T> source, Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new FusedGeneratorImpl<R>(action -> source.forEach(t -> action.accept(mapper.apply(t))));
+    }
+
+    static <T> GeneratorService<T> filter(GeneratorService<T> source, Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return new FusedGeneratorImpl<T>(action -> source.forEach(t -> {
+            if (predicate.test(t)) {
+                action.accept(t);
+            }
+        }));
     }
 
-    static <T> GeneratorService<T> newRunnableGenerator(Runnable task) {
-        return new RunnableGeneratorImpl<>(task);
+    static <T, R> GeneratorService<R> flatMap(GeneratorService<T> source,
+                                              Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        Objects.requireNonNull(mapper);
+        return new FusedGeneratorImpl<R>(action -> source.forEach(t -> mapper.apply(t).forEach(action)));
+    }
+
+    static <T> GeneratorService<T> take(GeneratorService<T> source, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        return new FusedGeneratorImpl<T>(action -> {
+            if (count == 0) {
+                return;
+            }
+            Object owner = new Object();
+            long[] taken = {0};
+            try {
+                source.forEach(t -> {
+                    action.accept(t);
+                    if (++taken[0] == count) {
+                        throw new StopFusedException(owner);
+                    }
+                });
+            } catch (StopFusedException e) {
+                if (e.owner != owner) {
+                    throw e;
+                }
+            }
+        });
+    }
+
+    static <T, U, R> GeneratorService<R> zip(GeneratorService<T> source, GeneratorService<U> other,
+                                             BiFunction<? super T, ? super U, ? extends R> zipper) {
+        Objects.requireNonNull(other);
+        Objects.requireNonNull(zipper);
+        return new FusedGeneratorImpl<R>(action -> {
+            Object owner = new Object();
+            try (GeneratorIterator<U> others = other.closeableIterator()) {
+                source.forEach(t -> {
+                    if (!others.hasNext()) {
+                        throw new StopFusedException(owner);
+                    }
+                    action.accept(zipper.apply(t, others.next()));
+                });
+            } catch (StopFusedException e) {
+                if (e.owner != owner) {
+                    throw e;
+                }
+            }
+        });
+    }
+
+    static <T> GeneratorService<T> interleave(GeneratorService<T> source, GeneratorService<? extends T> other) {
+        Objects.requireNonNull(other);
+        return new FusedGeneratorImpl<T>(action -> {
+            try (GeneratorIterator<? extends T> others = other.closeableIterator()) {
+                source.forEach(t -> {
+                    action.accept(t);
+                    if (others.hasNext()) {
+                        action.accept(others.next());
+                    }
+                });
+                others.forEachRemaining(action);
+            }
+        });
+    }
+
+    static <T> void yieldFrom(Generators.Yieldable<T> yieldable, GeneratorService<? extends T> inner) {
+        Iterator<? extends T> iterator = inner.iterator();
+        if (iterator instanceof PushPullIterator<? extends T> pushPull && pushPull.canPush()) {
+            pushPull.forEachRemaining(new SplicedYield<>(yieldable));
+            return;
+        }
+        // the inner generator was pulled from already, pull batches so the generators don't alternate per element
+        Object[] batch = new Object[YIELD_FROM_BATCH];
+        int size;
+        do {
+            size = 0;
+            while (size < batch.length && iterator.hasNext()) {
+                batch[size++] = iterator.next();
+            }
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                T item = (T) batch[i];
+                batch[i] = null;
+                yieldable.yield(item);
+            }
+        } while (size == batch.length);
+    }
+
+    /**
+     * Runs <code>task</code> with its yield bound to <code>action</code>. A <code>null</code> element ends the
+     * elements, as it ends the pulling iterators of the continuation based backends. If the task is spliced into an
+     * outer producer by {@link #yieldFrom}, it gets that producer's yieldable instead, so
+     * {@link Generators.Yieldable#flush()} reaches its buffer and a <code>null</code> element ends the outer producer,
+     * as it does when pulling.
+     */
+    static <T> void push(Consumer<Generators.Yieldable<T>> task, Consumer<? super T> action) {
+        if (action instanceof SplicedYield<?> spliced) {
+            // the elements of the inner generator are elements of the outer one
+            @SuppressWarnings("unchecked")
+            Generators.Yieldable<T> outer = (Generators.Yieldable<T>) spliced.outer();
+            task.accept(outer);
+            return;
+        }
+        pushUntilNull(yield -> task.accept(yield::accept), action);
+    }
+
+    /**
+     * Runs <code>push</code> with <code>action</code> until it pushes <code>null</code>. If the action is the yield of
+     * an outer producer, see {@link #push(Consumer, Consumer)}, the <code>null</code> is pushed to it and ends the
+     * outer producer.
+     */
+    private static <T> void pushUntilNull(Consumer<Consumer<? super T>> push, Consumer<? super T> action) {
+        if (action instanceof SplicedYield<?>) {
+            push.accept(action);
+            return;
+        }
+        UntilNull<T> untilNull = new UntilNull<>(action);
+        try {
+            push.accept(untilNull);
+        } catch (NullElementException e) {
+            if (!untilNull.ended) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Passes elements to <code>action</code> until the first <code>null</code>. The exception thrown to unwind the
+     * producer only stops it early: a producer which catches it and yields again gets it again, and its elements are
+     * dropped.
+     */
+    private static final class UntilNull<T> implements Consumer<T> {
+        private final Consumer<? super T> action;
+        private boolean ended;
+
+        UntilNull(Consumer<? super T> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void accept(T t) {
+            if (t == null) {
+                ended = true;
+            }
+            if (ended) {
+                throw NullElementException.INSTANCE;
+            }
+            action.accept(t);
+        }
+    }
+
+    /**
+     * The action a spliced inner generator pushes to, see {@link #push(Consumer, Consumer)}.
+     */
+    private record SplicedYield<T>(Generators.Yieldable<T> outer) implements Consumer<T> {
+        @Override
+        public void accept(T t) {
+            outer.yield(t);
+        }
+    }
+
+    /**
+     * Generator of a chain of fused stages. Pushing runs the chain on the calling thread, pulling runs it in a
+     * single {@link RunnableGenerator}.
+     */
+    private static class FusedGeneratorImpl<T> implements GeneratorService<T> {
+        private final Consumer<Consumer<? super T>> push;
+
+        /**
+         * @param push runs the chain, pushing its elements to the given action.
+         */
+        FusedGeneratorImpl(Consumer<Consumer<? super T>> push) {
+            this.push = push;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new PushPullIterator<>(() -> {
+                RunnableGenerator<T> generator = new RunnableGenerator<>(() -> push.accept(RunnableGenerator::yield));
+                return RunnableGeneratorImpl.generate(generator::get, generator::close);
+            }, action -> pushUntilNull(push, action));
+        }
+    }
+
+    /**
+     * Unwinds the stages below a {@link #take(GeneratorService, long)} or {@link #zip} stage once it is done.
+     */
+    private static final class StopFusedException extends RuntimeException {
+        private final Object owner;
+
+        StopFusedException(Object owner) {
+            super("stop-fused-generator", null, false, false);
+            this.owner = owner;
+        }
+    }
+
+    private static class HintedGeneratorImpl<T> implements GeneratorService<T> {
+        private final GeneratorService<T> generator;
+        private final long size;
+        private final int characteristics;
+
+        HintedGeneratorImpl(GeneratorService<T> generator, long size, int characteristics) {
+            this.generator = generator;
+            this.size = size;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return generator.iterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return new GeneratorSpliterator<>(generator.iterator(), size, characteristics);
+        }
+    }
+
+    /**
+     * Pushes the elements of <code>forEachable</code>, which must not be <code>null</code>, as its pulling iterators
+     * require.
+     */
+    private static <T> Consumer<Consumer<? super T>> rejectingNull(ForEachable<T> forEachable) {
+        return action -> forEachable.forEach(e -> action.accept(Objects.requireNonNull(e, "e")));
     }
 
     private static class KelemenGeneratorImpl<T> implements GeneratorService<T> {
@@ -40,22 +445,70 @@ class GeneratorBuilders {
 
         @Override
         public Iterator<T> iterator() {
-            return GeneratorFactories.toIterator(forEachable);
+            return new PushPullIterator<T>(() -> GeneratorFactories.toIterator(forEachable),
+                    rejectingNull(forEachable));
+        }
+    }
+
+    private static class RingBufferGeneratorImpl<T> implements GeneratorService<T> {
+        private final ForEachable<T> forEachable;
+        private final int capacity;
+
+        RingBufferGeneratorImpl(ForEachable<T> forEachable, int capacity) {
+            this.forEachable = forEachable;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new PushPullIterator<T>(() -> GeneratorFactories.toRingBufferIterator(forEachable, capacity),
+                    rejectingNull(forEachable));
+        }
+    }
+
+    private static class PrefetchingGeneratorImpl<T> implements GeneratorService<T> {
+        private final Consumer<Generators.Yieldable<T>> task;
+        private final int lookahead;
+
+        PrefetchingGeneratorImpl(Consumer<Generators.Yieldable<T>> task, int lookahead) {
+            this.task = task;
+            this.lookahead = lookahead;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new PushPullIterator<T>(() -> GeneratorFactories.<T>toRingBufferIterator(this::produce, lookahead),
+                    action -> push(task, action));
+        }
+
+        /**
+         * Runs the task on the producer thread. A <code>null</code> element ends the iteration, as it does for
+         * the pulling iterators of the synchronous backends.
+         */
+        private void produce(Consumer<? super T> action) {
+            push(task, action);
+        }
+    }
+
+    private static final class NullElementException extends RuntimeException {
+        static final NullElementException INSTANCE = new NullElementException();
+
+        private NullElementException() {
+            super("null-element", null, false, false);
         }
     }
 
     private static class MySnyGeneratorImpl<T> implements GeneratorService<T> {
-        final ContinuationInvoker invoker;
-        final Coroutine.Yielder<T> yielder;
+        private final Consumer<Coroutine.Yielder<T>> generator;
+        private final ContinuationInvoker.Mode mode;
 
-        MySnyGeneratorImpl(Consumer<Coroutine.Yielder<T>> generator) {
-            this.yielder = new Coroutine.Yielder<>();
-            this.invoker = new ContinuationInvoker(() -> generator.accept(yielder));
-            yielder.setContinuationInvoker(invoker);
+        MySnyGeneratorImpl(Consumer<Coroutine.Yielder<T>> generator, ContinuationInvoker.Mode mode) {
+            this.generator = generator;
+            this.mode = mode;
         }
 
-        private static <E> Iterator<E> generate(Supplier<E> nextFunction) {
-            return new Iterator<E>() {
+        private static <E> GeneratorIterator<E> generate(Supplier<E> nextFunction, Runnable closeAction) {
+            return new GeneratorIterator<E>() {
                 /**
                  * If true the iteration is done and there will be no more items.
                  */
@@ -93,11 +546,31 @@ class GeneratorBuilders {
                     nextItem = null;
                     return item;
                 }
+
+                @Override
+                public void close() {
+                    if (!done) {
+                        done = true;
+                        nextItem = null;
+                        closeAction.run();
+                    }
+                }
             };
         }
 
         @Override
         public Iterator<T> iterator() {
+            return new PushPullIterator<>(this::pullIterator, action -> pushUntilNull(consumer -> {
+                Coroutine.Yielder<T> pushYielder = new Coroutine.Yielder<>();
+                pushYielder.setConsumer(consumer);
+                generator.accept(pushYielder);
+            }, action));
+        }
+
+        private Iterator<T> pullIterator() {
+            final Coroutine.Yielder<T> yielder = new Coroutine.Yielder<>();
+            final ContinuationInvoker invoker = new ContinuationInvoker(() -> generator.accept(yielder), mode);
+            yielder.setContinuationInvoker(invoker);
             final Supplier<T> itemSupplier = () -> {
                 if (Objects.nonNull(yielder.getItem())) {
                     T item = yielder.getItem();
@@ -114,32 +587,107 @@ class GeneratorBuilders {
                 yielder.resetItem();
                 return item;
             };
-            return generate(itemSupplier);
+            return generate(itemSupplier, invoker::close);
+        }
+    }
+
+    /**
+     * Adapts {@link MySnyGeneratorImpl} to {@link Generators.Yieldable}. Its producer thread only reports a failure to
+     * the uncaught exception handler, so the failure is kept and thrown to the consumer after the last element, as
+     * the other backends do.
+     */
+    private static class CustomSchedulerGeneratorImpl<T> implements GeneratorService<T> {
+        private final Consumer<Generators.Yieldable<T>> task;
+
+        CustomSchedulerGeneratorImpl(Consumer<Generators.Yieldable<T>> task) {
+            this.task = task;
+        }
+
+        private static <E> GeneratorIterator<E> pullIterator(Consumer<Generators.Yieldable<E>> task) {
+            Throwable[] failure = new Throwable[1];
+            GeneratorIterator<E> elements = (GeneratorIterator<E>) new MySnyGeneratorImpl<E>(yielder -> {
+                try {
+                    task.accept(yielder::yield);
+                } catch (RuntimeException | Error e) {
+                    failure[0] = e;
+                }
+            }, ContinuationInvoker.Mode.DIRECT).iterator();
+            return new GeneratorIterator<>() {
+                private boolean closed;
+
+                @Override
+                public boolean hasNext() {
+                    if (elements.hasNext()) {
+                        return true;
+                    }
+                    Throwable e = failure[0];
+                    failure[0] = null;
+                    if (closed || e == null) {
+                        return false;
+                    }
+                    if (e instanceof Error error) {
+                        throw error;
+                    }
+                    throw (RuntimeException) e;
+                }
+
+                @Override
+                public E next() {
+                    return elements.next();
+                }
+
+                @Override
+                public void close() {
+                    closed = true;
+                    elements.close();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new PushPullIterator<>(() -> pullIterator(task), action -> push(task, action));
         }
     }
 
     private static class RobahoGeneratorImpl<T> implements GeneratorService<T> {
-        private final Iterator<T> iterator;
+        private final loom.generators.robaho.Generator.Producer<T> producer;
+        private final Generator.Mode mode;
 
-        RobahoGeneratorImpl(loom.generators.robaho.Generator.Producer<T> producer) {
-            this.iterator = new Generator<>(producer).iterator();
+        RobahoGeneratorImpl(loom.generators.robaho.Generator.Producer<T> producer, Generator.Mode mode) {
+            this.producer = producer;
+            this.mode = mode;
         }
 
         @Override
         public Iterator<T> iterator() {
-            return iterator;
+            return new PushPullIterator<>(() -> new Generator<>(producer, mode).iterator(),
+                    action -> producer.run(value -> {
+                        action.accept(value);
+                        return true;
+                    }));
         }
     }
 
+    /**
+     * Once a yield of the task could not suspend its continuation, because the task held a monitor or had a native
+     * frame on its stack, the iterators created afterwards run the task on a virtual thread instead.
+     */
     private static class RunnableGeneratorImpl<T> implements GeneratorService<T> {
-        private final RunnableGenerator<T> generator;
+        private final Consumer<Generators.Yieldable<T>> task;
+        /**
+         * The buffer size of the {@link RunnableGenerator}, 0 if it should not buffer.
+         */
+        private final int bufferSize;
+        private volatile boolean pinned;
 
-        RunnableGeneratorImpl(Runnable task) {
-            this.generator = new RunnableGenerator<>(task);
+        RunnableGeneratorImpl(Consumer<Generators.Yieldable<T>> task, int bufferSize) {
+            this.task = task;
+            this.bufferSize = bufferSize;
         }
 
-        private static <E> Iterator<E> generate(Supplier<E> nextFn) {
-            return new Iterator<>() {
+        private static <E> GeneratorIterator<E> generate(Supplier<E> nextFn, Runnable closeAction) {
+            return new GeneratorIterator<>() {
                 /**
                  * If true the iteration is done and there will be no more items.
                  */
@@ -177,6 +725,15 @@ class GeneratorBuilders {
                     nextItem = null;
                     return item;
                 }
+
+                @Override
+                public void close() {
+                    if (!done) {
+                        done = true;
+                        nextItem = null;
+                        closeAction.run();
+                    }
+                }
             };
         }
 //        @Override
@@ -216,7 +773,392 @@ class GeneratorBuilders {
 
         @Override
         public Iterator<T> iterator() {
-            return generate(generator::get);
+            if (pinned) {
+                GeneratorMetrics.PINNED_FALLBACKS.increment();
+                return new PrefetchingGeneratorImpl<>(task, Math.max(1, bufferSize)).iterator();
+            }
+            return new PushPullIterator<>(() -> {
+                RunnableGenerator<T> generator = bufferSize > 0
+                        ? new RunnableGenerator<>(() -> task.accept(new BufferedYieldable<>()), bufferSize)
+                        : new RunnableGenerator<>(() -> task.accept(RunnableGenerator::yield));
+                generator.setPinnedListener(reason -> pinned = true);
+                return generate(generator::get, generator::close);
+            }, action -> push(task, action));
+        }
+    }
+
+    private static class PooledRunnableGeneratorImpl<T> implements GeneratorService<T> {
+        private final GeneratorPool pool;
+        private final Consumer<Generators.Yieldable<T>> task;
+
+        PooledRunnableGeneratorImpl(GeneratorPool pool, Consumer<Generators.Yieldable<T>> task) {
+            this.pool = pool;
+            this.task = task;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new PushPullIterator<>(() -> {
+                RunnableGenerator<T> generator = pool.acquire(() -> task.accept(RunnableGenerator::yield));
+                PooledSupplier<T> supplier = new PooledSupplier<>(pool, generator);
+                return RunnableGeneratorImpl.generate(supplier, supplier::close);
+            }, action -> push(task, action));
+        }
+    }
+
+    /**
+     * Returns the generator to its pool as soon as it is exhausted or closed and never touches it afterwards, since
+     * the pool may already have handed it out for another target.
+     */
+    private static class PooledSupplier<T> implements Supplier<T> {
+        private final GeneratorPool pool;
+        private RunnableGenerator<T> generator;
+
+        PooledSupplier(GeneratorPool pool, RunnableGenerator<T> generator) {
+            this.pool = pool;
+            this.generator = generator;
+        }
+
+        @Override
+        public T get() {
+            RunnableGenerator<T> g = generator;
+            if (g == null) {
+                return null;
+            }
+            T item;
+            try {
+                item = g.get();
+            } catch (RuntimeException e) {
+                release(g);
+                throw e;
+            }
+            if (item == null) {
+                release(g);
+            }
+            return item;
+        }
+
+        /**
+         * Unwinds the target if it is still suspended and returns the generator to the pool.
+         */
+        void close() {
+            RunnableGenerator<T> g = generator;
+            if (g == null) {
+                return;
+            }
+            try {
+                g.close();
+            } finally {
+                release(g);
+            }
+        }
+
+        private void release(RunnableGenerator<T> g) {
+            generator = null;
+            pool.release(g);
+        }
+    }
+
+    private static class BufferedYieldable<T> implements Generators.Yieldable<T> {
+        @Override
+        public void yield(T t) {
+            RunnableGenerator.yield(t);
+        }
+
+        @Override
+        public void flush() {
+            RunnableGenerator.flush();
+        }
+    }
+
+    private static class AsyncGeneratorImpl<T> implements AsyncGeneratorService<T> {
+        private final Consumer<Generators.AsyncYieldable<T>> task;
+
+        AsyncGeneratorImpl(Consumer<Generators.AsyncYieldable<T>> task) {
+            this.task = task;
+        }
+
+        @Override
+        public AsyncIterator<T> asyncIterator() {
+            AsyncGenerator<T> generator = new AsyncGenerator<>(() -> task.accept(new Generators.AsyncYieldable<>() {
+                @Override
+                public void yield(T t) {
+                    AsyncGenerator.yield(t);
+                }
+
+                @Override
+                public <V> V await(CompletionStage<V> stage) {
+                    return AsyncGenerator.await(stage);
+                }
+            }));
+            return new AsyncIterator<>() {
+                @Override
+                public CompletionStage<T> nextAsync() {
+                    return generator.nextAsync();
+                }
+
+                @Override
+                public void close() {
+                    generator.close();
+                }
+            };
+        }
+    }
+
+    private static class IntGeneratorImpl implements IntGeneratorService {
+        private final Consumer<Generators.IntYieldable> task;
+
+        IntGeneratorImpl(Consumer<Generators.IntYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return new IntGeneratorIterator(task);
+        }
+    }
+
+    /**
+     * State shared by the iterators of the primitive generators. The generator is only created on the first pull, a
+     * generator consumed by pushing runs its task directly.
+     */
+    private abstract static class PrimitiveGeneratorIterator<T> implements GeneratorIterator<T> {
+        private boolean started = false;
+        private boolean pushed = false;
+        private boolean closed = false;
+        /**
+         * If true the next value was pulled and has not been returned yet.
+         */
+        private boolean ready = false;
+
+        /**
+         * Creates the generator.
+         */
+        abstract void start();
+
+        /**
+         * Pulls the next value from the generator unless it is done.
+         *
+         * @return <code>false</code> if the generator is done.
+         */
+        abstract boolean advance();
+
+        abstract void closeGenerator();
+
+        @Override
+        public boolean hasNext() {
+            if (pushed || closed) {
+                return false;
+            }
+            if (!started) {
+                started = true;
+                start();
+            }
+            if (!ready) {
+                ready = advance();
+            }
+            return ready;
+        }
+
+        /**
+         * Marks the pulled value as returned.
+         */
+        final void consume() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+        }
+
+        /**
+         * @return <code>true</code> if nothing was pulled yet, the caller then runs the task with its yield bound to
+         *         the action.
+         */
+        final boolean startPush() {
+            if (started || pushed || closed) {
+                return false;
+            }
+            pushed = true;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            ready = false;
+            if (started) {
+                closeGenerator();
+            }
+        }
+    }
+
+    private static class IntGeneratorIterator extends PrimitiveGeneratorIterator<Integer>
+            implements PrimitiveIterator.OfInt {
+        private final Consumer<Generators.IntYieldable> task;
+        private IntGenerator generator;
+        private int nextItem;
+
+        IntGeneratorIterator(Consumer<Generators.IntYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        void start() {
+            generator = new IntGenerator(() -> task.accept(IntGenerator::yieldInt));
+        }
+
+        @Override
+        boolean advance() {
+            if (generator.isDone()) {
+                return false;
+            }
+            nextItem = generator.getAsInt();
+            return !generator.isDone();
+        }
+
+        @Override
+        void closeGenerator() {
+            generator.close();
+        }
+
+        @Override
+        public int nextInt() {
+            consume();
+            return nextItem;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            if (startPush()) {
+                task.accept(action::accept);
+                return;
+            }
+            while (hasNext()) {
+                action.accept(nextInt());
+            }
+        }
+    }
+
+    private static class LongGeneratorImpl implements LongGeneratorService {
+        private final Consumer<Generators.LongYieldable> task;
+
+        LongGeneratorImpl(Consumer<Generators.LongYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        public PrimitiveIterator.OfLong iterator() {
+            return new LongGeneratorIterator(task);
+        }
+    }
+
+    private static class LongGeneratorIterator extends PrimitiveGeneratorIterator<Long>
+            implements PrimitiveIterator.OfLong {
+        private final Consumer<Generators.LongYieldable> task;
+        private LongGenerator generator;
+        private long nextItem;
+
+        LongGeneratorIterator(Consumer<Generators.LongYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        void start() {
+            generator = new LongGenerator(() -> task.accept(LongGenerator::yieldLong));
+        }
+
+        @Override
+        boolean advance() {
+            if (generator.isDone()) {
+                return false;
+            }
+            nextItem = generator.getAsLong();
+            return !generator.isDone();
+        }
+
+        @Override
+        void closeGenerator() {
+            generator.close();
+        }
+
+        @Override
+        public long nextLong() {
+            consume();
+            return nextItem;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            if (startPush()) {
+                task.accept(action::accept);
+                return;
+            }
+            while (hasNext()) {
+                action.accept(nextLong());
+            }
+        }
+    }
+
+    private static class DoubleGeneratorImpl implements DoubleGeneratorService {
+        private final Consumer<Generators.DoubleYieldable> task;
+
+        DoubleGeneratorImpl(Consumer<Generators.DoubleYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        public PrimitiveIterator.OfDouble iterator() {
+            return new DoubleGeneratorIterator(task);
+        }
+    }
+
+    private static class DoubleGeneratorIterator extends PrimitiveGeneratorIterator<Double>
+            implements PrimitiveIterator.OfDouble {
+        private final Consumer<Generators.DoubleYieldable> task;
+        private DoubleGenerator generator;
+        private double nextItem;
+
+        DoubleGeneratorIterator(Consumer<Generators.DoubleYieldable> task) {
+            this.task = task;
+        }
+
+        @Override
+        void start() {
+            generator = new DoubleGenerator(() -> task.accept(DoubleGenerator::yieldDouble));
+        }
+
+        @Override
+        boolean advance() {
+            if (generator.isDone()) {
+                return false;
+            }
+            nextItem = generator.getAsDouble();
+            return !generator.isDone();
+        }
+
+        @Override
+        void closeGenerator() {
+            generator.close();
+        }
+
+        @Override
+        public double nextDouble() {
+            consume();
+            return nextItem;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            if (startPush()) {
+                task.accept(action::accept);
+                return;
+            }
+            while (hasNext()) {
+                action.accept(nextDouble());
+            }
         }
     }
 }
@@ -0,0 +1,14 @@
+package loom.generators;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over a generator which can be closed before it is exhausted. Closing unwinds a suspended producer, so its
+ * finally blocks run, and releases the continuation or thread of the producer right away instead of leaving it to
+ * the garbage collector. Closing an exhausted iterator does nothing.
+ */
+public interface GeneratorIterator<T> extends Iterator<T>, AutoCloseable {
+
+    @Override
+    void close();
+}
@@ -0,0 +1,33 @@
+package loom.generators;
+
+import loom.generators.sk4is3r.RunnableGenerator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide counters of the generators.
+ */
+public final class GeneratorMetrics {
+    static final LongAdder PINNED_YIELDS = new LongAdder();
+    static final LongAdder PINNED_FALLBACKS = new LongAdder();
+
+    private GeneratorMetrics() {
+    }
+
+    /**
+     * Number of yields of continuation based generators which failed because they could not suspend the producer, as
+     * it held a monitor or had a native frame on its stack.
+     */
+    public static long pinnedYields() {
+        return PINNED_YIELDS.sum() + RunnableGenerator.pinnedYields();
+    }
+
+    /**
+     * Number of iterators of generators created by {@link Generators#newRunnableGenerator} whose producer runs on a
+     * virtual thread instead of a continuation, because a yield of an earlier iterator of the same generator was
+     * pinned.
+     */
+    public static long pinnedFallbacks() {
+        return PINNED_FALLBACKS.sum();
+    }
+}
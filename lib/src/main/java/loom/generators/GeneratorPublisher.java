@@ -0,0 +1,183 @@
+package loom.generators;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Publisher} over a generator. Every subscriber gets its own iterator of the generator, so it sees the
+ * elements a new {@link GeneratorService#iterator()} would see. The iterator is only pulled from on the executor:
+ * each element requested by {@link Flow.Subscription#request(long)} resumes the producer once, so it never runs ahead
+ * of the demand and no thread waits for the subscriber. All signals to a subscriber are sent from a drain loop, which
+ * runs on the executor whenever there is something to deliver and at most once at a time.
+ */
+class GeneratorPublisher<T> implements Flow.Publisher<T> {
+    private final GeneratorService<T> generator;
+    private final Executor executor;
+
+    GeneratorPublisher(GeneratorService<T> generator, Executor executor) {
+        this.generator = Objects.requireNonNull(generator, "generator");
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        new GeneratorSubscription<>(generator, subscriber, executor).drain();
+    }
+
+    private static final class GeneratorSubscription<T> implements Flow.Subscription, Runnable {
+        private final GeneratorService<T> generator;
+        private final Executor executor;
+        /**
+         * The subscriber, <code>null</code> once it received a terminal signal or cancelled, so it can be collected.
+         * Only accessed by the drain loop.
+         */
+        private Flow.Subscriber<? super T> subscriber;
+        private GeneratorIterator<T> iterator;
+        private boolean subscribed;
+
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * Number of drain requests which are not handled yet, the drain loop runs while it is positive.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        /**
+         * The argument of the first non-positive {@link #request(long)}, 0 if there was none.
+         */
+        private volatile long invalidRequest;
+
+        GeneratorSubscription(GeneratorService<T> generator, Flow.Subscriber<? super T> subscriber,
+                              Executor executor) {
+            this.generator = generator;
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (invalidRequest == 0) {
+                    invalidRequest = n == 0 ? -1 : n;
+                }
+            } else {
+                requested.getAndAccumulate(n, (current, add) -> {
+                    long sum = current + add;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    // the executor rejected the drain, so terminate on the calling thread, which owns the subscription
+                    // like a drain loop until wip is back at 0
+                    Flow.Subscriber<? super T> s = subscriber;
+                    if (s != null) {
+                        boolean subscribe = !subscribed;
+                        subscribed = true;
+                        try {
+                            terminate();
+                        } catch (RuntimeException | Error closeFailure) {
+                            e.addSuppressed(closeFailure);
+                        }
+                        if (subscribe) {
+                            s.onSubscribe(this);
+                        }
+                        s.onError(e);
+                    }
+                    // the subscription is terminated, so the drains requested meanwhile have nothing to deliver
+                    wip.set(0);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                Flow.Subscriber<? super T> s = subscriber;
+                if (s != null) {
+                    emit(s);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit(Flow.Subscriber<? super T> s) {
+            if (!subscribed) {
+                subscribed = true;
+                s.onSubscribe(this);
+            }
+            long emitted = 0;
+            try {
+                while (true) {
+                    if (cancelled) {
+                        terminate();
+                        return;
+                    }
+                    long invalid = invalidRequest;
+                    if (invalid != 0) {
+                        terminate();
+                        s.onError(new IllegalArgumentException(
+                                "request must be positive (rule 3.9): " + (invalid == -1 ? 0 : invalid)));
+                        return;
+                    }
+                    long demand = requested.get();
+                    if (emitted == demand) {
+                        if (demand != Long.MAX_VALUE) {
+                            demand = requested.addAndGet(-emitted);
+                        }
+                        emitted = 0;
+                        if (demand == 0) {
+                            return;
+                        }
+                    }
+                    if (iterator == null) {
+                        iterator = generator.closeableIterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        subscriber = null;
+                        s.onComplete();
+                        return;
+                    }
+                    T next = iterator.next();
+                    s.onNext(next);
+                    emitted++;
+                }
+            } catch (RuntimeException | Error e) {
+                Flow.Subscriber<? super T> current = subscriber;
+                terminate();
+                if (current != null) {
+                    s.onError(e);
+                }
+            }
+        }
+
+        /**
+         * Unwinds the producer and drops the subscriber.
+         */
+        private void terminate() {
+            subscriber = null;
+            cancelled = true;
+            GeneratorIterator<T> it = iterator;
+            if (it != null) {
+                iterator = null;
+                it.close();
+            }
+        }
+    }
+}
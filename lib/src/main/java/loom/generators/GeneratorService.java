@@ -1,5 +1,119 @@
 package loom.generators;
 
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 public interface GeneratorService<T> extends Iterable<T> {
 
+    /**
+     * Returns the iterator of the generator as {@link GeneratorIterator}, to be used in try-with-resources when the
+     * generator may be abandoned before it is exhausted.
+     */
+    default GeneratorIterator<T> closeableIterator() {
+        Iterator<T> iterator = iterator();
+        if (iterator instanceof GeneratorIterator<T> generatorIterator) {
+            return generatorIterator;
+        }
+        return new GeneratorIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super T> action) {
+                iterator.forEachRemaining(action);
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+    }
+
+    /**
+     * Consumes the generator by internal iteration. Backends run the producer directly with its yield bound to the
+     * action if no element was pulled yet, so no suspension is needed. A null element ends the elements in this mode
+     * as well.
+     */
+    @Override
+    default void forEach(Consumer<? super T> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    /**
+     * Creates a spliterator which splits by draining batches of elements from the generator into arrays. Use
+     * {@link Generators#withHints(GeneratorService, long, int)} to provide a size hint and characteristics.
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        return new GeneratorSpliterator<>(iterator(), Long.MAX_VALUE, Spliterator.ORDERED);
+    }
+
+    /*
+     * Combinators. Stateless stages are fused: they wrap the action the elements are pushed to, so a chain of stages
+     * runs inside the producer's own yield and pulling from it needs a single continuation. Only zip and interleave
+     * pull from a second generator, which runs in its own continuation. The generators returned by the combinators
+     * consume this generator, and like all generators they end at a null element when pulled.
+     */
+
+    default <R> GeneratorService<R> map(Function<? super T, ? extends R> mapper) {
+        return GeneratorBuilders.map(this, mapper);
+    }
+
+    default GeneratorService<T> filter(Predicate<? super T> predicate) {
+        return GeneratorBuilders.filter(this, predicate);
+    }
+
+    /**
+     * Replaces every element by the elements of the iterable returned by the mapper. Generators returned by the
+     * mapper are pushed and so fused as well.
+     */
+    default <R> GeneratorService<R> flatMap(Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        return GeneratorBuilders.flatMap(this, mapper);
+    }
+
+    /**
+     * Ends after <code>count</code> elements. The producer is unwound right after it yielded the last element, so
+     * it never computes an element which is not taken.
+     */
+    default GeneratorService<T> take(long count) {
+        return GeneratorBuilders.take(this, count);
+    }
+
+    /**
+     * Combines the elements of this and the other generator pairwise, ends with the shorter of both.
+     */
+    default <U, R> GeneratorService<R> zip(GeneratorService<U> other,
+                                           BiFunction<? super T, ? super U, ? extends R> zipper) {
+        return GeneratorBuilders.zip(this, other, zipper);
+    }
+
+    /**
+     * Alternates between the elements of this and the other generator, starting with this one. The remaining
+     * elements of the longer generator follow at the end.
+     */
+    default GeneratorService<T> interleave(GeneratorService<? extends T> other) {
+        return GeneratorBuilders.interleave(this, other);
+    }
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -0,0 +1,82 @@
+package loom.generators;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over a generator's iterator. {@link #trySplit()} drains a batch of elements into an array,
+ * so the prefix can be processed by another thread while this spliterator keeps resuming the generator. The batch
+ * size grows with every split, like the one of {@link Spliterators#spliterator(Iterator, long, int)}.
+ */
+class GeneratorSpliterator<T> implements Spliterator<T> {
+    static final int BATCH_UNIT = 1 << 10;
+    static final int MAX_BATCH = 1 << 25;
+
+    private final Iterator<? extends T> iterator;
+    private final int characteristics;
+    /**
+     * The exact number of remaining elements if {@link #SIZED}, otherwise an estimate.
+     */
+    private long estimate;
+    private int batch;
+
+    GeneratorSpliterator(Iterator<? extends T> iterator, long estimate, int characteristics) {
+        this.iterator = Objects.requireNonNull(iterator);
+        this.estimate = estimate;
+        this.characteristics = (characteristics & SIZED) != 0 ? characteristics | SUBSIZED : characteristics;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long remaining = estimate;
+        if (remaining <= 1 || !iterator.hasNext()) {
+            return null;
+        }
+        int n = batch + BATCH_UNIT;
+        if (n > remaining) {
+            n = (int) remaining;
+        }
+        if (n > MAX_BATCH) {
+            n = MAX_BATCH;
+        }
+        Object[] array = new Object[n];
+        int j = 0;
+        do {
+            array[j] = iterator.next();
+        } while (++j < n && iterator.hasNext());
+        batch = j;
+        if (estimate != Long.MAX_VALUE) {
+            estimate -= j;
+        }
+        return Spliterators.spliterator(array, 0, j, characteristics & (ORDERED | NONNULL));
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (iterator.hasNext()) {
+            action.accept(iterator.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        iterator.forEachRemaining(action);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+}
@@ -1,32 +1,309 @@
 package loom.generators;
 
 import loom.generators.kelemen.ForEachable;
+import loom.generators.mvysny.ContinuationInvoker;
 import loom.generators.mvysny.Coroutine;
 import loom.generators.robaho.Generator;
-import loom.generators.sk4is3r.RunnableGenerator;
+import loom.generators.sk4is3r.GeneratorPool;
 
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 public class Generators {
 
+    /**
+     * Creates a generator on the fastest {@link GeneratorBackend} which works in the running JVM, see
+     * {@link #backend()}.
+     */
+    public static <T> GeneratorService<T> newGenerator(Consumer<Yieldable<T>> task) {
+        return GeneratorBuilders.newGenerator(BackendSelection.selected(), task);
+    }
+
+    public static <T> GeneratorService<T> newGenerator(GeneratorBackend backend, Consumer<Yieldable<T>> task) {
+        return GeneratorBuilders.newGenerator(Objects.requireNonNull(backend, "backend"), task);
+    }
+
+    /**
+     * Returns the backend of {@link #newGenerator(Consumer)}. When first called, every backend is probed by running a
+     * small generator on it, and the available one with the lowest cost per element is chosen. The costs are read
+     * from the <code>backend-calibration.properties</code> resource of this package, whose entries are overridden by
+     * the properties file named by the system property <code>loom.generators.backend.calibration</code>. The system
+     * property <code>loom.generators.backend</code> chooses a backend by name, as long as it is available. The
+     * choice is logged once to the {@link System.Logger} named after this class.
+     */
+    public static GeneratorBackend backend() {
+        return BackendSelection.selected();
+    }
+
     public static <T> GeneratorService<T> newMvySnyGenerator(Consumer<Coroutine.Yielder<T>> generator) {
         return GeneratorBuilders.newMySnyGenerator(generator);
     }
 
+    /**
+     * Creates a generator whose {@link ContinuationInvoker} resumes the producer as selected by <code>mode</code>.
+     */
+    public static <T> GeneratorService<T> newMvySnyGenerator(Consumer<Coroutine.Yielder<T>> generator,
+                                                             ContinuationInvoker.Mode mode) {
+        return GeneratorBuilders.newMySnyGenerator(generator, mode);
+    }
+
     public static <T> GeneratorService<T> newRobahoGenerator(Generator.Producer<T> producer) {
         return GeneratorBuilders.newRobahoGenerator(producer);
     }
 
+    /**
+     * Creates a {@link Generator} which hands values over as selected by <code>mode</code>.
+     */
+    public static <T> GeneratorService<T> newRobahoGenerator(Generator.Producer<T> producer, Generator.Mode mode) {
+        return GeneratorBuilders.newRobahoGenerator(producer, mode);
+    }
+
+    /**
+     * Creates a {@link loom.generators.sk4is3r.RunnableGenerator}. A yield while the task holds a monitor cannot
+     * suspend the continuation and fails with {@link IllegalStateException}. The iterators this generator creates
+     * afterwards run the task on a virtual thread, as {@link #prefetching} does, which is counted in
+     * {@link GeneratorMetrics#pinnedFallbacks()}.
+     */
     public static <T> GeneratorService<T> newRunnableGenerator(Consumer<Yieldable<T>> task) {
-        return GeneratorBuilders.newRunnableGenerator(() -> task.accept(RunnableGenerator::yield));
+        return GeneratorBuilders.newRunnableGenerator(task);
+    }
+
+    /**
+     * Creates a {@link loom.generators.sk4is3r.RunnableGenerator} which hands values over to the consumer in batches of
+     * <code>bufferSize</code>. Call {@link Yieldable#flush()} to hand over a partial batch.
+     */
+    public static <T> GeneratorService<T> newRunnableGenerator(Consumer<Yieldable<T>> task, int bufferSize) {
+        return GeneratorBuilders.newRunnableGenerator(task, bufferSize);
+    }
+
+    /**
+     * Creates a {@link loom.generators.sk4is3r.RunnableGenerator} whose continuation is taken from a shared
+     * {@link GeneratorPool} and returned to it once the generator is exhausted.
+     */
+    public static <T> GeneratorService<T> newPooledRunnableGenerator(Consumer<Yieldable<T>> task) {
+        return GeneratorBuilders.newPooledRunnableGenerator(task);
+    }
+
+    public static <T> GeneratorService<T> newPooledRunnableGenerator(GeneratorPool pool, Consumer<Yieldable<T>> task) {
+        return GeneratorBuilders.newPooledRunnableGenerator(pool, task);
     }
 
     public static <T> GeneratorService<T> newKelemenGenerator(ForEachable<T> forEachable) {
         return GeneratorBuilders.newKelemenGenerator(forEachable);
     }
 
+    /**
+     * Creates a queue based generator whose producer runs in a virtual thread and hands elements over through a
+     * lock-free ring of the given capacity, so it can run ahead of the consumer.
+     */
+    public static <T> GeneratorService<T> newRingBufferGenerator(ForEachable<T> forEachable, int capacity) {
+        return GeneratorBuilders.newRingBufferGenerator(forEachable, capacity);
+    }
+
+    /**
+     * Creates a generator whose producer runs ahead of the consumer on its own virtual thread, by up to
+     * <code>lookahead</code> elements. Producer and consumer work overlap, while the order of the elements and the
+     * exceptions the consumer sees are the same as for {@link #newRunnableGenerator(Consumer)}.
+     */
+    public static <T> GeneratorService<T> prefetching(Consumer<Yieldable<T>> producer, int lookahead) {
+        return GeneratorBuilders.prefetching(producer, lookahead);
+    }
+
+    /**
+     * Creates a generator whose producer can {@link AsyncYieldable#await(CompletionStage) await} asynchronous results,
+     * e.g. the next page of a remote service. While the producer awaits, its continuation is suspended and no thread
+     * is blocked. It is resumed by the thread completing the awaited stage.
+     */
+    public static <T> AsyncGeneratorService<T> newAsyncGenerator(Consumer<AsyncYieldable<T>> task) {
+        return GeneratorBuilders.newAsyncGenerator(task);
+    }
+
+    /**
+     * Adapts the generator to a {@link Flow.Publisher}, see {@link #toPublisher(GeneratorService, Executor)}. The
+     * subscribers are signalled on the common pool, or on a new virtual thread per drain if the common pool has no
+     * parallelism, like for {@link java.util.concurrent.SubmissionPublisher}.
+     */
+    public static <T> Flow.Publisher<T> toPublisher(GeneratorService<T> generator) {
+        return GeneratorBuilders.toPublisher(generator, GeneratorBuilders.defaultPublisherExecutor());
+    }
+
+    /**
+     * Adapts the generator to a {@link Flow.Publisher}. Every subscriber gets its own
+     * {@link GeneratorService#closeableIterator() iterator} of the generator, which for the generators of this class
+     * runs the producer again, so every subscriber sees all elements. The producer is resumed on
+     * <code>executor</code> once per requested element, so it never runs ahead of the demand, and cancelling the
+     * subscription closes the iterator, which unwinds the producer. The completion is signalled once the subscriber
+     * requests an element past the last one.
+     */
+    public static <T> Flow.Publisher<T> toPublisher(GeneratorService<T> generator, Executor executor) {
+        return GeneratorBuilders.toPublisher(generator, executor);
+    }
+
+    /**
+     * Shares a single run of the source between independent consumers: every {@link GeneratorService#iterator()} of
+     * the returned generator is a cursor over the elements pulled from one iterator of the source. The source only
+     * runs as far as the fastest cursor needs, and elements are released once the slowest cursor passed them.
+     * Cursors start at the next element pulled from the source, so create them before pulling to see all elements.
+     * The cursors may be used by different threads.
+     */
+    public static <T> GeneratorService<T> broadcast(GeneratorService<T> source) {
+        return GeneratorBuilders.broadcast(source, GeneratorBuilders.BROADCAST_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize the number of elements per segment of the shared buffer, the unit in which elements are
+     *                    released.
+     */
+    public static <T> GeneratorService<T> broadcast(GeneratorService<T> source, int segmentSize) {
+        return GeneratorBuilders.broadcast(source, segmentSize);
+    }
+
+    /**
+     * Merges generators which are sorted by <code>comparator</code> into one sorted generator, with a loser tree
+     * over batches pulled from each source. Equal elements are returned in the order of the sources. Closing the
+     * iterator closes the iterators of all sources.
+     */
+    public static <T> GeneratorService<T> mergeSorted(Comparator<? super T> comparator,
+                                                      List<? extends GeneratorService<? extends T>> sources) {
+        return GeneratorBuilders.mergeSorted(Objects.requireNonNull(comparator, "comparator"), null, sources);
+    }
+
+    /**
+     * Like {@link #mergeSorted(Comparator, List)} for generators sorted by a long key. The key is extracted once per
+     * element and the merge compares primitives.
+     */
+    public static <T> GeneratorService<T> mergeSortedByKey(ToLongFunction<? super T> key,
+                                                           List<? extends GeneratorService<? extends T>> sources) {
+        return GeneratorBuilders.mergeSorted(null, Objects.requireNonNull(key, "key"), sources);
+    }
+
+    /**
+     * Returns a generator which can be iterated any number of times while the producer runs once: the elements are
+     * recorded as the first iterator pulls them, later iterators replay them and then continue with the live
+     * producer. At most about <code>maxCached</code> of the most recent elements are kept. An iterator which needs
+     * evicted elements recomputes them on a new generator from <code>source</code> until it caught up with the cache,
+     * and so does an iterator which needs new elements after all previous iterators were closed early.
+     * <code>source</code> must return generators of the same sequence. The iterators may be used by different
+     * threads.
+     */
+    public static <T> GeneratorService<T> memoized(Supplier<? extends GeneratorService<T>> source, int maxCached) {
+        return GeneratorBuilders.memoized(source, maxCached);
+    }
+
+    /**
+     * Like {@link #memoized(Supplier, int)} for ints, which are recorded unboxed.
+     */
+    public static IntGeneratorService memoizedInts(Supplier<? extends IntGeneratorService> source, int maxCached) {
+        return GeneratorBuilders.memoizedInts(source, maxCached);
+    }
+
+    /**
+     * Generates the records of a file without copying them: the file is memory-mapped and every record is a view of
+     * its bytes in the mapping. The same {@link MappedRecord} instance is yielded for every record, so a consumer
+     * which keeps records beyond the next step must {@link MappedRecord#copy()} them. Files larger than 2 GB are
+     * mapped in windows. I/O errors and truncated records are thrown as {@link java.io.UncheckedIOException}.
+     */
+    public static GeneratorService<MappedRecord> records(Path path, RecordFormat format) {
+        return GeneratorBuilders.records(path, format, MappedRecordReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Starts a {@link Pipeline} whose first stage runs <code>source</code> on a thread of its own, e.g.
+     * <pre>{@code
+     * Generators.pipeline(lines)
+     *         .map("parse", Record::parse)
+     *         .map("enrich", 4, enricher::enrich)
+     *         .map("serialize", Record::toJson)
+     * }</pre>
+     */
+    public static <T> Pipeline<T> pipeline(GeneratorService<T> source) {
+        return GeneratorBuilders.pipeline(source);
+    }
+
+    public static IntGeneratorService newIntGenerator(Consumer<IntYieldable> task) {
+        return GeneratorBuilders.newIntGenerator(task);
+    }
+
+    public static LongGeneratorService newLongGenerator(Consumer<LongYieldable> task) {
+        return GeneratorBuilders.newLongGenerator(task);
+    }
+
+    public static DoubleGeneratorService newDoubleGenerator(Consumer<DoubleYieldable> task) {
+        return GeneratorBuilders.newDoubleGenerator(task);
+    }
+
+    /**
+     * Attaches hints used by {@link GeneratorService#spliterator()} to the given generator.
+     *
+     * @param size            the exact number of elements if <code>characteristics</code> contains
+     *                        {@link Spliterator#SIZED}, otherwise an estimate or {@link Long#MAX_VALUE} if unknown.
+     * @param characteristics any combination of {@link Spliterator#ORDERED}, {@link Spliterator#SIZED} and
+     *                        {@link Spliterator#NONNULL}.
+     */
+    public static <T> GeneratorService<T> withHints(GeneratorService<T> generator, long size, int characteristics) {
+        if ((characteristics & ~(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL)) != 0) {
+            throw new IllegalArgumentException("Unsupported characteristics: " + characteristics);
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        return GeneratorBuilders.withHints(generator, size, characteristics);
+    }
+
     @FunctionalInterface
     public interface Yieldable<T> {
         void yield(T t);
+
+        /**
+         * Hands values buffered by {@link #yield(Object)} over to the consumer. Does nothing for generators which
+         * don't buffer.
+         */
+        default void flush() {
+        }
+
+        /**
+         * Yields all elements of the inner generator. If its iterator was not pulled from yet, as a new iterator of
+         * the generators of this package never is, its producer runs right here with its yield bound to this one, so
+         * the elements don't pass through another continuation however deeply generators are nested. Otherwise the
+         * remaining elements are pulled in batches.
+         */
+        default void yieldFrom(GeneratorService<? extends T> inner) {
+            GeneratorBuilders.yieldFrom(this, inner);
+        }
+    }
+
+    public interface AsyncYieldable<T> extends Yieldable<T> {
+        /**
+         * Suspends the producer until <code>stage</code> is complete.
+         *
+         * @return the result of the stage.
+         * @throws CompletionException if the stage completed exceptionally.
+         */
+        <V> V await(CompletionStage<V> stage);
+    }
+
+    @FunctionalInterface
+    public interface IntYieldable {
+        void yieldInt(int value);
+    }
+
+    @FunctionalInterface
+    public interface LongYieldable {
+        void yieldLong(long value);
+    }
+
+    @FunctionalInterface
+    public interface DoubleYieldable {
+        void yieldDouble(double value);
     }
 }
@@ -0,0 +1,22 @@
+package loom.generators;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public interface IntGeneratorService extends GeneratorService<Integer> {
+
+    @Override
+    PrimitiveIterator.OfInt iterator();
+
+    default void forEachInt(IntConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    default IntStream intStream() {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false);
+    }
+}
@@ -0,0 +1,22 @@
+package loom.generators;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public interface LongGeneratorService extends GeneratorService<Long> {
+
+    @Override
+    PrimitiveIterator.OfLong iterator();
+
+    default void forEachLong(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    default LongStream longStream() {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false);
+    }
+}
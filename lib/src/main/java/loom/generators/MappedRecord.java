@@ -0,0 +1,107 @@
+package loom.generators;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A record yielded by {@link Generators#records(java.nio.file.Path, RecordFormat)}: a view of its bytes in the mapped
+ * region of the file, which is reused for the next record. Consumers which keep a record must {@link #copy()} it.
+ * <p>
+ * As a {@link CharSequence} every byte is one char (ISO-8859-1), which matches the text for ASCII. Use
+ * {@link #toString(Charset)} to decode other encodings.
+ */
+public final class MappedRecord implements CharSequence {
+    private ByteBuffer buffer;
+    /**
+     * Duplicate of {@link #buffer} returned by {@link #buffer()}, created once per buffer.
+     */
+    private ByteBuffer view;
+    private int start;
+    private int length;
+    private long offset;
+
+    MappedRecord() {
+    }
+
+    void set(ByteBuffer buffer, int start, int length, long offset) {
+        if (this.buffer != buffer) {
+            this.buffer = buffer;
+            this.view = null;
+        }
+        this.start = start;
+        this.length = length;
+        this.offset = offset;
+    }
+
+    /**
+     * The position of the first byte of the record in the file.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Returns a read-only buffer whose remaining bytes are the record. The buffer itself is reused for the next
+     * records, like this record.
+     */
+    public ByteBuffer buffer() {
+        ByteBuffer v = view;
+        if (v == null) {
+            v = view = buffer.asReadOnlyBuffer();
+        }
+        v.clear();
+        v.position(start).limit(start + length);
+        return v;
+    }
+
+    public byte byteAt(int index) {
+        Objects.checkIndex(index, length);
+        return buffer.get(start + index);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (byteAt(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new String(bytes(start, end), StandardCharsets.ISO_8859_1);
+    }
+
+    public byte[] toByteArray() {
+        return bytes(0, length);
+    }
+
+    private byte[] bytes(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(start + from, bytes);
+        return bytes;
+    }
+
+    public String toString(Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    @Override
+    public String toString() {
+        return toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns a record over a copy of the bytes, which stays valid after the generator moved on.
+     */
+    public MappedRecord copy() {
+        MappedRecord copy = new MappedRecord();
+        copy.set(ByteBuffer.wrap(toByteArray()), 0, length, offset);
+        return copy;
+    }
+}
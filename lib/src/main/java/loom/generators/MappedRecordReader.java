@@ -0,0 +1,140 @@
+package loom.generators;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Producer of {@link Generators#records(Path, RecordFormat)}. The file is mapped read-only in windows of at least
+ * {@link #windowSize} bytes, since a single mapping is limited to 2 GB. Every window starts at the first record not
+ * yet yielded: when a record is cut by the end of the window, the next window is mapped from its start, larger if
+ * the record does not fit. Windows which were left are unmapped when they are garbage collected.
+ */
+class MappedRecordReader implements Consumer<Generators.Yieldable<MappedRecord>> {
+    static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+    private static final long NEWLINES = 0x0a0a0a0a0a0a0a0aL;
+
+    private final Path path;
+    private final RecordFormat format;
+    private final int windowSize;
+
+    private FileChannel channel;
+    private long size;
+    private MappedByteBuffer window;
+    /**
+     * File position of the first byte of {@link #window}.
+     */
+    private long windowStart;
+    private int windowLength;
+
+    MappedRecordReader(Path path, RecordFormat format, int windowSize) {
+        this.path = path;
+        this.format = format;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void accept(Generators.Yieldable<MappedRecord> yieldable) {
+        MappedRecord record = new MappedRecord();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel = ch;
+            size = ch.size();
+            long position = 0;
+            while (position < size) {
+                position = format == RecordFormat.LINES ? nextLine(record, position) : nextPrefixed(record, position);
+                yieldable.yield(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            channel = null;
+            window = null;
+        }
+    }
+
+    /**
+     * Points <code>record</code> at the line starting at <code>position</code>.
+     *
+     * @return the position of the next record.
+     */
+    private long nextLine(MappedRecord record, long position) throws IOException {
+        int minLength = 1;
+        while (true) {
+            int start = ensureMapped(position, minLength);
+            int end = windowLength;
+            boolean last = windowStart + end == size;
+            int i = indexOfNewline(start, end);
+            if (i < end || last) {
+                int length = i - start;
+                if (length > 0 && window.get(i - 1) == '\r') {
+                    length--;
+                }
+                record.set(window, start, length, position);
+                return windowStart + Math.min(i + 1, end);
+            }
+            // the line continues beyond the window
+            if (end - start == MAX_WINDOW_SIZE) {
+                throw new UncheckedIOException(new IOException("record at " + position + " is longer than 2 GB"));
+            }
+            minLength = (int) Math.min(Math.min(MAX_WINDOW_SIZE, size - position), 2L * (end - start));
+        }
+    }
+
+    /**
+     * Searches eight bytes at a time, with the zero byte test of <i>Hacker's Delight</i> on the word xor'ed with
+     * newlines. The word is read little-endian since the test is only exact for the lowest flagged byte.
+     *
+     * @return the index of the first newline in <code>[from, to)</code> or <code>to</code>.
+     */
+    private int indexOfNewline(int from, int to) {
+        MappedByteBuffer w = window;
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            long word = Long.reverseBytes(w.getLong(i)) ^ NEWLINES;
+            long found = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        while (i < to && w.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private long nextPrefixed(MappedRecord record, long position) throws IOException {
+        int start = ensureMapped(position, Integer.BYTES);
+        int length = window.getInt(start);
+        if (length < 0 || (long) length + Integer.BYTES > MAX_WINDOW_SIZE) {
+            throw new UncheckedIOException(new IOException("invalid record length " + length + " at " + position));
+        }
+        start = ensureMapped(position, Integer.BYTES + length);
+        record.set(window, start + Integer.BYTES, length, position);
+        return position + Integer.BYTES + length;
+    }
+
+    /**
+     * Maps a window containing <code>minLength</code> bytes from <code>position</code>, unless the current one does.
+     *
+     * @return the index of <code>position</code> in the window.
+     */
+    private int ensureMapped(long position, int minLength) throws IOException {
+        if (size - position < minLength) {
+            throw new UncheckedIOException(new EOFException("truncated record at " + position + " in " + path));
+        }
+        if (window != null && position >= windowStart && position + minLength <= windowStart + windowLength) {
+            return (int) (position - windowStart);
+        }
+        int length = (int) Math.min(size - position, Math.max(windowSize, minLength));
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        windowStart = position;
+        windowLength = length;
+        return 0;
+    }
+}
@@ -0,0 +1,480 @@
+package loom.generators;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Records the elements of a generator as they are pulled, so the sequence can be iterated again without running the
+ * producer again. Like {@link BroadcastGenerator} the elements are appended to a linked list of chunks and the live
+ * iterator of the source is only pulled when a cursor reaches the end of the list, but the list starts at a head
+ * which is kept until more than <code>maxCached</code> newer elements were recorded. Then the oldest chunk is
+ * evicted: its elements are cleared and its link to the next chunk is cut, so a cursor which lags behind does not
+ * keep the elements recorded after its position reachable.
+ * <p>
+ * A cursor which starts behind the head recomputes the sequence on its own iterator of the source, skipping the
+ * elements it has not reached, and joins the cache again once it caught up with the head. When every cursor was
+ * closed before the end, the live iterator is closed as well, and the next cursor which needs new elements
+ * recomputes them the same way. A failure of the source is recorded as its last element.
+ */
+abstract class MemoizedGenerator<T> {
+    private final int maxCached;
+    private final int chunkSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /*
+     * Guarded by the lock, except for the volatile fields, which are only written while holding it.
+     */
+    private Iterator<T> live;
+    private Chunk tail;
+    private volatile Chunk head;
+    /**
+     * Number of elements recorded so far.
+     */
+    private volatile long count;
+    private volatile boolean done;
+    private Throwable failure;
+    private int openCursors;
+
+    MemoizedGenerator(int maxCached, int chunkSize) {
+        this.maxCached = maxCached;
+        this.chunkSize = chunkSize;
+        this.head = this.tail = new Chunk(0);
+    }
+
+    /**
+     * Returns a new iterator of the source.
+     */
+    abstract Iterator<T> open();
+
+    abstract Object newChunk(int size);
+
+    /**
+     * Pulls the next element of <code>iterator</code> into <code>chunk</code>.
+     *
+     * @return <code>false</code> if the iterator is exhausted.
+     */
+    abstract boolean store(Iterator<T> iterator, Object chunk, int index);
+
+    /**
+     * Releases the elements of an evicted chunk.
+     */
+    abstract void clear(Object chunk);
+
+    /**
+     * Pulls <code>n</code> elements of <code>iterator</code> without keeping them.
+     *
+     * @return <code>false</code> if the iterator ended before.
+     */
+    boolean skip(Iterator<T> iterator, long n) {
+        for (long i = 0; i < n; i++) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            iterator.next();
+        }
+        return true;
+    }
+
+    private static void closeIterator(Iterator<?> iterator) {
+        if (iterator instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Records the element at <code>position</code> unless another cursor did already.
+     *
+     * @return <code>false</code> if the source is exhausted.
+     */
+    private boolean pull(long position) {
+        lock.lock();
+        try {
+            if (position < count) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            try {
+                if (live == null) {
+                    live = open();
+                    if (!skip(live, position)) {
+                        done = true;
+                        return false;
+                    }
+                }
+                Chunk chunk = tail;
+                int offset = (int) (position - chunk.base);
+                if (offset == chunkSize) {
+                    chunk = new Chunk(position);
+                    offset = 0;
+                }
+                if (!store(live, chunk.elements, offset)) {
+                    done = true;
+                    live = null;
+                    return false;
+                }
+                if (chunk != tail) {
+                    tail.next = chunk;
+                    tail = chunk;
+                    evict(position + 1);
+                }
+                count = position + 1;
+                return true;
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                done = true;
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(long recorded) {
+        Chunk h = head;
+        while (h != tail && recorded - h.next.base >= maxCached) {
+            Chunk evicted = h;
+            h = h.next;
+            evicted.evicted = true;
+            // cursors which read an element before seeing the flag validate it afterwards, see Cursor#valid
+            VarHandle.storeStoreFence();
+            clear(evicted.elements);
+            evicted.next = null;
+        }
+        head = h;
+    }
+
+    /**
+     * Returns the chunk which holds the position of the cursor, or <code>null</code> if it was evicted or is beyond
+     * the end of the recorded elements. The iterator of a detached cursor at the end becomes the live iterator if
+     * there is none.
+     */
+    private Chunk attach(Cursor cursor) {
+        long position = cursor.position;
+        lock.lock();
+        try {
+            Chunk c = head;
+            if (position < c.base || position > count) {
+                return null;
+            }
+            if (cursor.own != null && position == count && live == null && !done) {
+                live = cursor.own;
+                cursor.own = null;
+            }
+            while (position - c.base > chunkSize || (position - c.base == chunkSize && c.next != null)) {
+                c = c.next;
+            }
+            return c;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        Iterator<T> it = null;
+        lock.lock();
+        try {
+            if (--openCursors == 0 && !done) {
+                it = live;
+                live = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (it != null) {
+            closeIterator(it);
+        }
+    }
+
+    final class Chunk {
+        /**
+         * Position of the first element of the chunk.
+         */
+        private final long base;
+        private final Object elements = newChunk(chunkSize);
+        private volatile Chunk next;
+        /**
+         * Set before the elements are cleared.
+         */
+        private volatile boolean evicted;
+
+        Chunk(long base) {
+            this.base = base;
+        }
+    }
+
+    /**
+     * Moves through the recorded elements, or through an iterator of its own while it is behind the head.
+     */
+    abstract class Cursor {
+        Chunk chunk;
+        int offset;
+        long position;
+        /**
+         * The iterator which recomputes the elements, not <code>null</code> while the cursor is detached.
+         */
+        Iterator<T> own;
+        private boolean closed;
+
+        Cursor() {
+            lock.lock();
+            try {
+                openCursors++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (own != null) {
+                return hasNextDetached();
+            }
+            if (chunk != null && chunk.evicted) {
+                chunk = null;
+            }
+            if (chunk == null) {
+                chunk = attach(this);
+                if (chunk == null) {
+                    detach();
+                    return hasNextDetached();
+                }
+                offset = (int) (position - chunk.base);
+            }
+            if (position < count || pull(position)) {
+                if (offset == chunkSize) {
+                    Chunk next = chunk.next;
+                    if (next == null) {
+                        // evicted meanwhile
+                        chunk = null;
+                        return hasNext();
+                    }
+                    chunk = next;
+                    offset = 0;
+                }
+                return true;
+            }
+            close();
+            // written before done, which pull() read while holding the lock
+            Throwable e = failure;
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e != null) {
+                throw (Error) e;
+            }
+            return false;
+        }
+
+        private void detach() {
+            own = open();
+            if (!skip(own, position)) {
+                close();
+            }
+        }
+
+        private boolean hasNextDetached() {
+            if (closed) {
+                return false;
+            }
+            if (position >= head.base && position <= count) {
+                Chunk c = attach(this);
+                if (c != null) {
+                    Iterator<T> it = own;
+                    own = null;
+                    if (it != null) {
+                        closeIterator(it);
+                    }
+                    chunk = c;
+                    offset = (int) (position - c.base);
+                    return hasNext();
+                }
+            }
+            if (own.hasNext()) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        /**
+         * Advances to the next element, which is at <code>offset</code> in <code>chunk</code> unless the cursor is
+         * detached.
+         */
+        final void advance() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position++;
+        }
+
+        /**
+         * Checks that the element just read from <code>c</code> was not cleared by an eviction. Otherwise the cursor
+         * steps back, so it is recomputed by the next {@link #advance()}.
+         */
+        final boolean valid(Chunk c) {
+            VarHandle.acquireFence();
+            if (!c.evicted) {
+                return true;
+            }
+            position--;
+            chunk = null;
+            return false;
+        }
+
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            chunk = null;
+            Iterator<T> it = own;
+            own = null;
+            if (it != null) {
+                closeIterator(it);
+            }
+            release();
+        }
+    }
+
+    static final class OfObject<T> extends MemoizedGenerator<T> implements GeneratorService<T> {
+        private final Supplier<? extends GeneratorService<T>> source;
+
+        OfObject(Supplier<? extends GeneratorService<T>> source, int maxCached, int chunkSize) {
+            super(maxCached, chunkSize);
+            this.source = Objects.requireNonNull(source, "source");
+        }
+
+        @Override
+        Iterator<T> open() {
+            return source.get().closeableIterator();
+        }
+
+        @Override
+        Object newChunk(int size) {
+            return new Object[size];
+        }
+
+        @Override
+        boolean store(Iterator<T> iterator, Object chunk, int index) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            ((Object[]) chunk)[index] = iterator.next();
+            return true;
+        }
+
+        @Override
+        void clear(Object chunk) {
+            Arrays.fill((Object[]) chunk, null);
+        }
+
+        @Override
+        public GeneratorIterator<T> iterator() {
+            return new ObjectCursor();
+        }
+
+        private final class ObjectCursor extends Cursor implements GeneratorIterator<T> {
+            @Override
+            public T next() {
+                while (true) {
+                    advance();
+                    if (own != null) {
+                        return own.next();
+                    }
+                    Chunk c = chunk;
+                    @SuppressWarnings("unchecked")
+                    T element = (T) ((Object[]) c.elements)[offset];
+                    if (valid(c)) {
+                        offset++;
+                        return element;
+                    }
+                }
+            }
+        }
+    }
+
+    static final class OfInt extends MemoizedGenerator<Integer> implements IntGeneratorService {
+        private final Supplier<? extends IntGeneratorService> source;
+
+        OfInt(Supplier<? extends IntGeneratorService> source, int maxCached, int chunkSize) {
+            super(maxCached, chunkSize);
+            this.source = Objects.requireNonNull(source, "source");
+        }
+
+        @Override
+        Iterator<Integer> open() {
+            return source.get().iterator();
+        }
+
+        @Override
+        Object newChunk(int size) {
+            return new int[size];
+        }
+
+        @Override
+        boolean store(Iterator<Integer> iterator, Object chunk, int index) {
+            PrimitiveIterator.OfInt it = (PrimitiveIterator.OfInt) iterator;
+            if (!it.hasNext()) {
+                return false;
+            }
+            ((int[]) chunk)[index] = it.nextInt();
+            return true;
+        }
+
+        @Override
+        boolean skip(Iterator<Integer> iterator, long n) {
+            PrimitiveIterator.OfInt it = (PrimitiveIterator.OfInt) iterator;
+            for (long i = 0; i < n; i++) {
+                if (!it.hasNext()) {
+                    return false;
+                }
+                it.nextInt();
+            }
+            return true;
+        }
+
+        /**
+         * Ints don't reference anything, so the values of an evicted chunk stay valid for a cursor still reading it.
+         */
+        @Override
+        void clear(Object chunk) {
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return new IntCursor();
+        }
+
+        private final class IntCursor extends Cursor implements PrimitiveIterator.OfInt, GeneratorIterator<Integer> {
+            @Override
+            public int nextInt() {
+                advance();
+                if (own != null) {
+                    return ((PrimitiveIterator.OfInt) own).nextInt();
+                }
+                return ((int[]) chunk.elements)[offset++];
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package loom.generators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+/**
+ * A chain of stages, each of which runs on threads of its own, so the stages of a pipeline work on different
+ * elements at the same time. Create one with {@link Generators#pipeline(GeneratorService)}, which runs the source as
+ * the first stage, and add stages with {@link #map} and {@link #stage}. Every stage returns a new pipeline, the
+ * pipeline itself is a generator of the elements of its last stage.
+ * <p>
+ * Neighbouring stages are connected by a bounded channel of batches. A stage blocks when the channel to its successor
+ * holds {@link #capacity(int) capacity} batches, so no stage runs further ahead than that. A {@link #map} stage can
+ * run its function on several threads, each of which takes whole batches, and hands the batches on in their original
+ * order. Every {@link #iterator()} runs the pipeline once, on a new iterator of the source, so it sees all elements
+ * if the source runs its producer again for every iterator, as the generators of {@link Generators} do. Closing the
+ * iterator stops all stages, as does collecting an iterator which was dropped before the end, and a failure of any
+ * stage stops the others and is thrown to the consumer. {@link #metrics()} shows which stage holds the others up.
+ */
+public final class Pipeline<T> implements GeneratorService<T> {
+    static final int DEFAULT_BATCH_SIZE = 256;
+    static final int DEFAULT_CAPACITY = 16;
+
+    final List<Stage> stages;
+    final int batchSize;
+    final int capacity;
+    /**
+     * <code>null</code> for virtual threads named after their stage.
+     */
+    final ThreadFactory threadFactory;
+    /**
+     * The run of the most recent iterator, <code>null</code> if there was none yet.
+     */
+    private volatile PipelineRun<T> lastRun;
+
+    Pipeline(List<Stage> stages, int batchSize, int capacity, ThreadFactory threadFactory) {
+        this.stages = List.copyOf(stages);
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.threadFactory = threadFactory;
+    }
+
+    static <T> Pipeline<T> of(GeneratorService<T> source) {
+        Objects.requireNonNull(source, "source");
+        Function<Object, GeneratorService<T>> first = ignored -> source;
+        return new Pipeline<>(List.of(new Stage("source", 1, null, erase(first))), DEFAULT_BATCH_SIZE,
+                DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * Adds a stage applying <code>mapper</code> to every element on a thread of its own.
+     */
+    public <R> Pipeline<R> map(String name, Function<? super T, ? extends R> mapper) {
+        return map(name, 1, mapper);
+    }
+
+    /**
+     * Adds a stage applying <code>mapper</code> to every element on <code>parallelism</code> threads. The elements
+     * keep their order, so <code>mapper</code> must not depend on the elements it saw before.
+     */
+    public <R> Pipeline<R> map(String name, int parallelism, Function<? super T, ? extends R> mapper) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        return then(new Stage(Objects.requireNonNull(name, "name"), parallelism,
+                erase(Objects.requireNonNull(mapper, "mapper")), null));
+    }
+
+    /**
+     * Adds a stage which runs <code>stage</code> on a thread of its own. It gets a generator of the elements of the
+     * previous stage, and the elements of the generator it returns are passed on. Unlike a {@link #map} stage it can
+     * keep state between elements, and drop, combine or add elements.
+     */
+    public <R> Pipeline<R> stage(String name,
+                                 Function<? super GeneratorService<T>, ? extends GeneratorService<R>> stage) {
+        return then(new Stage(Objects.requireNonNull(name, "name"), 1, null,
+                erase(Objects.requireNonNull(stage, "stage"))));
+    }
+
+    private <R> Pipeline<R> then(Stage stage) {
+        List<Stage> next = new ArrayList<>(stages);
+        next.add(stage);
+        return new Pipeline<>(next, batchSize, capacity, threadFactory);
+    }
+
+    /**
+     * Sets the number of elements a stage collects before handing them on. Larger batches make the hand-over cheaper
+     * and the pipeline less responsive. Defaults to {@value #DEFAULT_BATCH_SIZE}.
+     */
+    public Pipeline<T> batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        return new Pipeline<>(stages, batchSize, capacity, threadFactory);
+    }
+
+    /**
+     * Sets the number of batches a channel between two stages holds. Defaults to {@value #DEFAULT_CAPACITY}.
+     */
+    public Pipeline<T> capacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        return new Pipeline<>(stages, batchSize, capacity, threadFactory);
+    }
+
+    /**
+     * Sets the factory of the threads of the stages, e.g. <code>Thread.ofPlatform().factory()</code> for stages which
+     * should not share the carrier threads of the virtual threads. Defaults to virtual threads, which are named after
+     * their stage.
+     */
+    public Pipeline<T> threadFactory(ThreadFactory threadFactory) {
+        return new Pipeline<>(stages, batchSize, capacity, Objects.requireNonNull(threadFactory, "threadFactory"));
+    }
+
+    /**
+     * Starts the threads of all stages and returns an iterator of the elements of the last stage.
+     */
+    @Override
+    public GeneratorIterator<T> iterator() {
+        PipelineRun<T> run = new PipelineRun<>(this);
+        lastRun = run;
+        return run.start();
+    }
+
+    /**
+     * Returns the metrics of the stages of the most recent run, in the order of the stages, or an empty list if the
+     * pipeline was not run yet.
+     */
+    public List<StageMetrics> metrics() {
+        PipelineRun<T> run = lastRun;
+        return run == null ? List.of() : run.metrics();
+    }
+
+    /**
+     * Snapshot of a stage of a run. The bottleneck is the stage with the highest {@link #utilization()}, whose input
+     * channel is usually full while the channel to its successor is empty.
+     *
+     * @param elements          the number of elements the stage passed on.
+     * @param elementsPerSecond <code>elements</code> divided by the time the stage has been running.
+     * @param queueDepth        the number of batches in the input channel of the stage, always 0 for the source.
+     * @param queueCapacity     the capacity of the input channel, 0 for the source.
+     * @param utilization       the fraction of the time the threads of the stage were not waiting for a batch from
+     *                          their predecessor or for room in the channel to their successor.
+     */
+    public record StageMetrics(String name, int parallelism, long elements, double elementsPerSecond, int queueDepth,
+                               int queueCapacity, double utilization) {
+    }
+
+    /**
+     * A stage is either a function applied to every element or a function of generators. The first stage returns the
+     * source and gets no generator.
+     */
+    record Stage(String name, int parallelism, Function<Object, Object> mapper,
+                 Function<GeneratorService<Object>, GeneratorService<Object>> generator) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A, B> Function<A, B> erase(Function<?, ?> function) {
+        return (Function<A, B>) function;
+    }
+}
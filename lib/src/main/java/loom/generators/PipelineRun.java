@@ -0,0 +1,474 @@
+package loom.generators;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One run of a {@link Pipeline}. The threads of the stages reference the run but not the {@link RunIterator} of
+ * the consumer, so an iterator which is dropped without being closed stops the stages once it is collected.
+ * <p>
+ * Every stage numbers the batches it sends, and the last one is an end marker without elements. The threads of a
+ * {@link Pipeline#map} stage take batches from the shared input channel, map the elements in place and send the
+ * batch on once all batches with a lower number were sent, so the order is kept without a reorder buffer. The worker
+ * which takes the end marker puts it back for the other workers of its stage. A stage which ends before its input
+ * did, e.g. one which only takes the first elements, stops the stages before it.
+ */
+final class PipelineRun<T> {
+    /**
+     * Stops the stages of runs whose iterator was dropped without being closed.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int batchSize;
+    private final StageRun[] stages;
+    /**
+     * The output channel of the last stage.
+     */
+    private final Channel last;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final ReentrantLock stopLock = new ReentrantLock();
+    /**
+     * The stages with a lower index were stopped, so their threads were interrupted and their failures are ignored.
+     */
+    private volatile int stoppedBelow;
+
+    PipelineRun(Pipeline<T> pipeline) {
+        this.batchSize = pipeline.batchSize;
+        List<Pipeline.Stage> specs = pipeline.stages;
+        this.stages = new StageRun[specs.size()];
+        Channel input = null;
+        for (int i = 0; i < stages.length; i++) {
+            Channel output = new Channel(pipeline.capacity);
+            stages[i] = new StageRun(this, i, specs.get(i), input, output, pipeline.threadFactory);
+            input = output;
+        }
+        this.last = input;
+    }
+
+    /**
+     * Starts the threads of all stages.
+     *
+     * @return the iterator of the consumer over the elements of the last stage.
+     */
+    GeneratorIterator<T> start() {
+        RunIterator<T> iterator = new RunIterator<>(this);
+        for (StageRun stage : stages) {
+            stage.startNanos = System.nanoTime();
+            for (Thread thread : stage.threads) {
+                thread.start();
+            }
+        }
+        return iterator;
+    }
+
+    List<Pipeline.StageMetrics> metrics() {
+        long now = System.nanoTime();
+        List<Pipeline.StageMetrics> metrics = new ArrayList<>(stages.length);
+        for (StageRun stage : stages) {
+            long end = stage.endNanos;
+            double elapsed = Math.max(1, (end != 0 ? end : now) - stage.startNanos);
+            long elements = stage.elements.sum();
+            double waiting = stage.waitingNanos.sum() / (elapsed * stage.threads.length);
+            metrics.add(new Pipeline.StageMetrics(stage.spec.name(), stage.threads.length, elements,
+                    elements * 1e9 / elapsed, stage.input == null ? 0 : stage.input.queue.size(),
+                    stage.input == null ? 0 : stage.input.capacity, Math.max(0, Math.min(1, 1 - waiting))));
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops all stages. Their threads are interrupted, which unwinds them as soon as they wait for a channel.
+     */
+    void stop() {
+        stop(stages.length);
+    }
+
+    private void stop(int below) {
+        stopLock.lock();
+        try {
+            if (below <= stoppedBelow) {
+                return;
+            }
+            stoppedBelow = below;
+            for (int i = 0; i < below; i++) {
+                for (Thread thread : stages[i].threads) {
+                    thread.interrupt();
+                }
+            }
+        } finally {
+            stopLock.unlock();
+        }
+    }
+
+    private void failed(StageRun stage, Throwable e) {
+        if (stage.index < stoppedBelow || !failure.compareAndSet(null, e)) {
+            return;
+        }
+        stop(stages.length);
+        // wakes the consumer, the stopped threads can't put batches any more
+        last.queue.clear();
+        last.queue.offer(Batch.FAILED);
+    }
+
+    /**
+     * Runs a stage which is a function of generators, or the source.
+     */
+    private void runGenerator(StageRun stage) {
+        GeneratorIterator<Object> iterator = null;
+        try {
+            GeneratorService<Object> input = stage.input == null ? null : new ChannelGenerator(stage);
+            iterator = stage.spec.generator().apply(input).closeableIterator();
+            long sequence = 0;
+            Batch batch = new Batch(sequence, new Object[batchSize]);
+            while (iterator.hasNext()) {
+                batch.elements[batch.size++] = iterator.next();
+                if (batch.size == batchSize) {
+                    stage.send(batch);
+                    batch = new Batch(++sequence, new Object[batchSize]);
+                }
+            }
+            if (batch.size > 0) {
+                stage.send(batch);
+                sequence++;
+            }
+            stage.output.put(new Batch(sequence, null), stage);
+            if (stage.input != null) {
+                stop(stage.index);
+            }
+        } catch (InterruptedException | StoppedException e) {
+            // stopped
+        } catch (RuntimeException | Error e) {
+            failed(stage, e);
+        } finally {
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (RuntimeException | Error e) {
+                    failed(stage, e);
+                }
+            }
+            stage.finished();
+        }
+    }
+
+    /**
+     * Runs a thread of a {@link Pipeline#map} stage.
+     */
+    private void runMapper(StageRun stage) {
+        try {
+            while (true) {
+                Batch batch = stage.input.take(stage);
+                if (batch.elements == null) {
+                    if (stage.threads.length > 1) {
+                        stage.input.queue.offer(batch);
+                    }
+                    if (stage.endSent.compareAndSet(false, true)) {
+                        stage.awaitTurn(batch.sequence);
+                        stage.output.put(batch, stage);
+                    }
+                    return;
+                }
+                Object[] elements = batch.elements;
+                for (int i = 0; i < batch.size; i++) {
+                    elements[i] = stage.spec.mapper().apply(elements[i]);
+                }
+                stage.awaitTurn(batch.sequence);
+                try {
+                    stage.send(batch);
+                } finally {
+                    stage.advanceTurn();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } catch (RuntimeException | Error e) {
+            failed(stage, e);
+        } finally {
+            stage.finished();
+        }
+    }
+
+    /**
+     * The iterator of the consumer over the elements of the last stage.
+     */
+    private static final class RunIterator<T> implements GeneratorIterator<T> {
+        private final PipelineRun<T> run;
+        private final Cleaner.Cleanable cleanable;
+        private Batch current;
+        private int position;
+        private boolean done;
+
+        RunIterator(PipelineRun<T> run) {
+            this.run = run;
+            this.cleanable = CLEANER.register(this, run::stop);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || position == current.size) {
+                if (done) {
+                    return false;
+                }
+                Batch batch = run.last.takeUninterruptibly();
+                Throwable e = run.failure.get();
+                if (e != null) {
+                    close();
+                    if (e instanceof Error error) {
+                        throw error;
+                    }
+                    throw (RuntimeException) e;
+                }
+                if (batch.elements == null) {
+                    done = true;
+                    current = null;
+                    return false;
+                }
+                current = batch;
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            @SuppressWarnings("unchecked")
+            T element = (T) current.elements[position];
+            current.elements[position++] = null;
+            return element;
+        }
+
+        /**
+         * Stops all stages, see {@link PipelineRun#stop()}.
+         */
+        @Override
+        public void close() {
+            done = true;
+            current = null;
+            cleanable.clean();
+        }
+    }
+
+    static final class Batch {
+        /**
+         * Passed to the consumer when a stage failed.
+         */
+        static final Batch FAILED = new Batch(-1, null);
+
+        final long sequence;
+        /**
+         * <code>null</code> for the end marker.
+         */
+        final Object[] elements;
+        int size;
+
+        Batch(long sequence, Object[] elements) {
+            this.sequence = sequence;
+            this.elements = elements;
+        }
+    }
+
+    static final class Channel {
+        final ArrayBlockingQueue<Batch> queue;
+        final int capacity;
+
+        Channel(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.capacity = capacity;
+        }
+
+        void put(Batch batch, StageRun stage) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                queue.put(batch);
+            } finally {
+                stage.waitingNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        Batch take(StageRun stage) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                return queue.take();
+            } finally {
+                stage.waitingNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        Batch takeUninterruptibly() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return queue.take();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Unwinds a stage function which pulls from its input after the stage was stopped.
+     */
+    private static final class StoppedException extends RuntimeException {
+        StoppedException() {
+            super("pipeline-stopped", null, false, false);
+        }
+    }
+
+    static final class StageRun {
+        final int index;
+        final Pipeline.Stage spec;
+        /**
+         * <code>null</code> for the source.
+         */
+        final Channel input;
+        final Channel output;
+        final Thread[] threads;
+        final LongAdder elements = new LongAdder();
+        final LongAdder waitingNanos = new LongAdder();
+        private final AtomicInteger running;
+        private final AtomicBoolean endSent = new AtomicBoolean();
+        private final ReentrantLock turnLock = new ReentrantLock();
+        private final Condition turnChanged = turnLock.newCondition();
+        /**
+         * Number of the next batch a {@link Pipeline#map} stage sends. Guarded by the turn lock.
+         */
+        private long turn;
+        volatile long startNanos;
+        volatile long endNanos;
+
+        StageRun(PipelineRun<?> run, int index, Pipeline.Stage spec, Channel input, Channel output,
+                 ThreadFactory threadFactory) {
+            this.index = index;
+            this.spec = spec;
+            this.input = input;
+            this.output = output;
+            this.threads = new Thread[spec.parallelism()];
+            this.running = new AtomicInteger(threads.length);
+            Runnable body = spec.mapper() != null ? () -> run.runMapper(this) : () -> run.runGenerator(this);
+            for (int i = 0; i < threads.length; i++) {
+                String name = threads.length == 1 ? spec.name() : spec.name() + "-" + i;
+                threads[i] = threadFactory != null
+                        ? threadFactory.newThread(body)
+                        : Thread.ofVirtual().name(name).unstarted(body);
+            }
+        }
+
+        void send(Batch batch) throws InterruptedException {
+            int size = batch.size;
+            output.put(batch, this);
+            elements.add(size);
+        }
+
+        void awaitTurn(long sequence) throws InterruptedException {
+            if (threads.length == 1) {
+                return;
+            }
+            long start = System.nanoTime();
+            turnLock.lockInterruptibly();
+            try {
+                while (turn != sequence) {
+                    turnChanged.await();
+                }
+            } finally {
+                turnLock.unlock();
+                waitingNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        void advanceTurn() {
+            if (threads.length == 1) {
+                return;
+            }
+            turnLock.lock();
+            try {
+                turn++;
+                turnChanged.signalAll();
+            } finally {
+                turnLock.unlock();
+            }
+        }
+
+        void finished() {
+            if (running.decrementAndGet() == 0) {
+                endNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * The input of a stage which is a function of generators. It can be iterated once.
+     */
+    private final class ChannelGenerator implements GeneratorService<Object> {
+        private final StageRun stage;
+        private boolean iterated;
+
+        ChannelGenerator(StageRun stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            if (iterated) {
+                throw new IllegalStateException("The input of stage " + stage.spec.name() + " can be iterated once");
+            }
+            iterated = true;
+            return new Iterator<>() {
+                private Batch batch;
+                private int position;
+                private boolean end;
+
+                @Override
+                public boolean hasNext() {
+                    while (batch == null || position == batch.size) {
+                        if (end) {
+                            return false;
+                        }
+                        try {
+                            batch = stage.input.take(stage);
+                        } catch (InterruptedException e) {
+                            throw new StoppedException();
+                        }
+                        position = 0;
+                        if (batch.elements == null) {
+                            end = true;
+                            batch = null;
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Object element = batch.elements[position];
+                    batch.elements[position++] = null;
+                    return element;
+                }
+            };
+        }
+    }
+}
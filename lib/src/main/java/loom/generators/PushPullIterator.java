@@ -0,0 +1,74 @@
+package loom.generators;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Iterator over a generator which can be consumed by pulling or by pushing. The pulling iterator of the backend is
+ * only created on the first {@link #hasNext()} or {@link #next()}. If {@link #forEachRemaining(Consumer)} is called
+ * before that, no suspension is needed at all: the producer is run directly with its yield bound to the action.
+ * Closing closes the pulling iterator if it is {@link AutoCloseable}.
+ */
+class PushPullIterator<T> implements GeneratorIterator<T> {
+    private final Supplier<? extends Iterator<T>> pull;
+    private final Consumer<Consumer<? super T>> push;
+    private Iterator<T> iterator;
+
+    PushPullIterator(Supplier<? extends Iterator<T>> pull, Consumer<Consumer<? super T>> push) {
+        this.pull = pull;
+        this.push = push;
+    }
+
+    /**
+     * @return <code>true</code> if nothing was pulled yet, so {@link #forEachRemaining(Consumer)} pushes.
+     */
+    boolean canPush() {
+        return iterator == null;
+    }
+
+    private Iterator<T> pullIterator() {
+        if (iterator == null) {
+            iterator = pull.get();
+        }
+        return iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pullIterator().hasNext();
+    }
+
+    @Override
+    public T next() {
+        return pullIterator().next();
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (iterator == null) {
+            iterator = Collections.emptyIterator();
+            push.accept(action);
+        } else {
+            iterator.forEachRemaining(action);
+        }
+    }
+
+    @Override
+    public void close() {
+        Iterator<T> pulled = iterator;
+        iterator = Collections.emptyIterator();
+        if (pulled instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package loom.generators;
+
+/**
+ * How {@link Generators#records(java.nio.file.Path, RecordFormat)} splits a file into records.
+ */
+public enum RecordFormat {
+    /**
+     * Records are terminated by <code>\n</code> or <code>\r\n</code>, which are not part of the record. The last
+     * record may be unterminated.
+     */
+    LINES,
+    /**
+     * Every record is preceded by its length in bytes, a big-endian 4 byte int.
+     */
+    LENGTH_PREFIXED
+}
@@ -0,0 +1,223 @@
+package loom.generators;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Merges sorted generators with a loser tree. Every internal node of the tree holds the run which lost the match at
+ * that node, so after the winner advanced only the matches on the path from its leaf to the root are replayed:
+ * log2(k) comparisons against the stored losers, without the sift-down of a heap and without boxing the heads.
+ * <p>
+ * Each run is pulled in batches into its own buffer, so a producer is resumed several times in a row while its
+ * stack is hot, and the heads are read from the buffers. With a long key the key of every head is extracted once
+ * and kept in an array, so the matches compare primitives. Equal elements keep the order of the runs.
+ */
+class SortedMergeGenerator<T> implements GeneratorService<T> {
+    private final List<? extends GeneratorService<? extends T>> sources;
+    private final Comparator<? super T> comparator;
+    private final ToLongFunction<? super T> key;
+
+    /**
+     * Exactly one of <code>comparator</code> and <code>key</code> is not <code>null</code>.
+     */
+    SortedMergeGenerator(List<? extends GeneratorService<? extends T>> sources, Comparator<? super T> comparator,
+                         ToLongFunction<? super T> key) {
+        this.sources = List.copyOf(sources);
+        this.comparator = comparator;
+        this.key = key;
+    }
+
+    @Override
+    public GeneratorIterator<T> iterator() {
+        return new MergeIterator();
+    }
+
+    /**
+     * Number of elements pulled from a run at a time. Smaller for many runs, so the buffers of all runs stay small.
+     */
+    static int batchSize(int runs) {
+        return Math.max(4, Math.min(64, (1 << 16) / Math.max(1, runs)));
+    }
+
+    private final class MergeIterator implements GeneratorIterator<T> {
+        private final int k = sources.size();
+        private final int batch = batchSize(k);
+        private final GeneratorIterator<? extends T>[] iterators;
+        private final Object[][] buffers;
+        private final int[] positions;
+        private final int[] limits;
+        /**
+         * Key of the head of each run, only used with a key function.
+         */
+        private final long[] keys;
+        private final boolean[] exhausted;
+        /**
+         * <code>tree[0]</code> is the winner, <code>tree[1..k-1]</code> the losers of the internal nodes. The leaf of
+         * run <code>r</code> is node <code>k + r</code>.
+         */
+        private final int[] tree;
+        private boolean started;
+        private boolean closed;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        MergeIterator() {
+            iterators = new GeneratorIterator[k];
+            buffers = new Object[k][];
+            positions = new int[k];
+            limits = new int[k];
+            keys = key != null ? new long[k] : null;
+            exhausted = new boolean[k];
+            tree = new int[Math.max(1, k)];
+        }
+
+        private void start() {
+            started = true;
+            for (int r = 0; r < k; r++) {
+                iterators[r] = sources.get(r).closeableIterator();
+                buffers[r] = new Object[batch];
+                refill(r);
+            }
+            if (k > 0) {
+                tree[0] = k == 1 ? 0 : build(1);
+            }
+        }
+
+        /**
+         * Plays the matches below <code>node</code> and returns their winner.
+         */
+        private int build(int node) {
+            if (node >= k) {
+                return node - k;
+            }
+            int left = build(2 * node);
+            int right = build(2 * node + 1);
+            if (beats(left, right)) {
+                tree[node] = right;
+                return left;
+            }
+            tree[node] = left;
+            return right;
+        }
+
+        private boolean beats(int a, int b) {
+            if (exhausted[a]) {
+                return false;
+            }
+            if (exhausted[b]) {
+                return true;
+            }
+            int cmp;
+            if (keys != null) {
+                cmp = Long.compare(keys[a], keys[b]);
+            } else {
+                @SuppressWarnings("unchecked")
+                T x = (T) buffers[a][positions[a]];
+                @SuppressWarnings("unchecked")
+                T y = (T) buffers[b][positions[b]];
+                cmp = comparator.compare(x, y);
+            }
+            return cmp < 0 || (cmp == 0 && a < b);
+        }
+
+        private void refill(int r) {
+            GeneratorIterator<? extends T> it = iterators[r];
+            Object[] buffer = buffers[r];
+            int n = 0;
+            while (n < buffer.length && it.hasNext()) {
+                buffer[n++] = it.next();
+            }
+            positions[r] = 0;
+            limits[r] = n;
+            if (n == 0) {
+                exhausted[r] = true;
+                buffers[r] = null;
+                iterators[r] = null;
+            } else if (keys != null) {
+                @SuppressWarnings("unchecked")
+                T head = (T) buffer[0];
+                keys[r] = key.applyAsLong(head);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (!started) {
+                start();
+            }
+            return k > 0 && !exhausted[tree[0]];
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int winner = tree[0];
+            Object[] buffer = buffers[winner];
+            int position = positions[winner];
+            @SuppressWarnings("unchecked")
+            T element = (T) buffer[position];
+            buffer[position++] = null;
+            if (position == limits[winner]) {
+                refill(winner);
+            } else {
+                positions[winner] = position;
+                if (keys != null) {
+                    @SuppressWarnings("unchecked")
+                    T head = (T) buffer[position];
+                    keys[winner] = key.applyAsLong(head);
+                }
+            }
+            replay(winner);
+            return element;
+        }
+
+        /**
+         * Replays the matches from the leaf of <code>run</code> up to the root.
+         */
+        private void replay(int run) {
+            int winner = run;
+            for (int node = (run + k) >> 1; node > 0; node >>= 1) {
+                int loser = tree[node];
+                if (beats(loser, winner)) {
+                    tree[node] = winner;
+                    winner = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            RuntimeException failure = null;
+            for (int r = 0; r < k; r++) {
+                GeneratorIterator<? extends T> it = iterators[r];
+                iterators[r] = null;
+                buffers[r] = null;
+                if (it != null) {
+                    try {
+                        it.close();
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
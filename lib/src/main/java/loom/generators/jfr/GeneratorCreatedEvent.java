@@ -0,0 +1,20 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("loom.generators.GeneratorCreated")
+@Label("Generator Created")
+@Category("Loom Generators")
+@Description("A generator of a backend with events enabled was created")
+@StackTrace(false)
+public final class GeneratorCreatedEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+}
@@ -0,0 +1,29 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("loom.generators.GeneratorEnd")
+@Label("Generator End")
+@Category("Loom Generators")
+@Description("A generator completed, failed, was closed or was abandoned while suspended")
+@StackTrace(false)
+public final class GeneratorEndEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Resumes")
+    long resumes;
+
+    @Label("Yields")
+    long yields;
+}
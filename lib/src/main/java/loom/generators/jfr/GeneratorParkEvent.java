@@ -0,0 +1,29 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Time the producer or the consumer of a thread based generator spent waiting for the other side.
+ */
+@Name("loom.generators.GeneratorPark")
+@Label("Generator Park")
+@Category("Loom Generators")
+@Description("The producer or the consumer of a thread based generator waited for the other side")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class GeneratorParkEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+
+    @Label("Producer")
+    @Description("The producer waited for the consumer, otherwise the consumer waited for the producer")
+    boolean producer;
+}
@@ -0,0 +1,26 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A yield which could not suspend the continuation of the producer. The stack trace shows where the producer held a
+ * monitor or had a native frame.
+ */
+@Name("loom.generators.GeneratorPinned")
+@Label("Generator Pinned")
+@Category("Loom Generators")
+@Description("A yield could not suspend the producer and failed")
+public final class GeneratorPinnedEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+
+    @Label("Reason")
+    @Description("MONITOR, NATIVE or CRITICAL_SECTION")
+    String reason;
+}
@@ -0,0 +1,34 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Duration of resuming the continuation of a generator until it suspends again or terminates. Only resumes slower
+ * than the threshold are recorded, so the event can stay enabled in production.
+ */
+@Name("loom.generators.GeneratorResume")
+@Label("Generator Resume")
+@Category("Loom Generators")
+@Description("The continuation of a generator ran until it suspended or terminated")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class GeneratorResumeEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+
+    @Label("Yields")
+    @Description("Number of values yielded during the resume, more than one for buffered generators")
+    int yields;
+
+    @Label("Done")
+    @Description("The producer terminated during the resume")
+    boolean done;
+}
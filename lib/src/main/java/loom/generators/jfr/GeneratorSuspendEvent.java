@@ -0,0 +1,31 @@
+package loom.generators.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Depth of the stack of a producer when it suspends. The frames of a suspended continuation are copied into its
+ * stack chunk, so the depth approximates the size of the chunk. Disabled by default, since it walks the stack on
+ * every suspension.
+ */
+@Name("loom.generators.GeneratorSuspend")
+@Label("Generator Suspend")
+@Category("Loom Generators")
+@Description("The producer of a generator suspended in yield")
+@Enabled(false)
+@StackTrace(false)
+public final class GeneratorSuspendEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Generator Id")
+    long generatorId;
+
+    @Label("Stack Frames")
+    @Description("Frames on the stack of the producer, approximates the size of the stack chunk")
+    int stackFrames;
+}
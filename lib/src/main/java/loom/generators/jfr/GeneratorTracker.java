@@ -0,0 +1,182 @@
+package loom.generators.jfr;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Emits the JFR events of a single generator. Events are only emitted for the backends listed in the system property
+ * <code>loom.generators.jfr.backends</code>, e.g. <code>-Dloom.generators.jfr.backends=sk4is3r,robaho</code> or
+ * <code>all</code>. Generators of other backends get no tracker at all, so they pay nothing but a null check. Which
+ * of the events are recorded is configured in the JFR settings as usual.
+ */
+public final class GeneratorTracker {
+
+    public enum Outcome {
+        COMPLETED, FAILED, CLOSED, ABANDONED
+    }
+
+    private static final Set<String> BACKENDS = Arrays.stream(
+                    System.getProperty("loom.generators.jfr.backends", "").split(","))
+            .map(String::trim)
+            .filter(backend -> !backend.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final String backend;
+    private final long id;
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private Cleaner.Cleanable cleanable;
+    /**
+     * Only written by the consumer, but read by the cleaner thread if the generator is abandoned.
+     */
+    private volatile long resumes;
+    private volatile long yields;
+
+    private GeneratorTracker(String backend, long id) {
+        this.backend = backend;
+        this.id = id;
+    }
+
+    public static boolean isEnabled(String backend) {
+        return BACKENDS.contains(backend) || BACKENDS.contains("all");
+    }
+
+    /**
+     * Creates the tracker of a new generator and emits its {@link GeneratorCreatedEvent}.
+     *
+     * @param backend   the name of the backend, e.g. <code>sk4is3r</code>.
+     * @param generator if it becomes unreachable before the tracker {@link #ended(Outcome) ended}, an
+     *                  {@link Outcome#ABANDONED} {@link GeneratorEndEvent} is emitted.
+     * @return the tracker, <code>null</code> if events are not enabled for the backend.
+     */
+    public static GeneratorTracker track(String backend, Object generator) {
+        if (!isEnabled(backend)) {
+            return null;
+        }
+        GeneratorTracker tracker = new GeneratorTracker(backend, IDS.incrementAndGet());
+        GeneratorCreatedEvent created = new GeneratorCreatedEvent();
+        if (created.shouldCommit()) {
+            created.backend = backend;
+            created.generatorId = tracker.id;
+            created.commit();
+        }
+        if (new GeneratorEndEvent().isEnabled()) {
+            tracker.cleanable = Abandonment.CLEANER.register(generator, () -> tracker.end(Outcome.ABANDONED));
+        }
+        return tracker;
+    }
+
+    public GeneratorResumeEvent beginResume() {
+        GeneratorResumeEvent event = new GeneratorResumeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param yields the number of values yielded during the resume.
+     * @param done   <code>true</code> if the producer terminated during the resume.
+     */
+    public void endResume(GeneratorResumeEvent event, int yields, boolean done) {
+        resumes++;
+        this.yields += yields;
+        event.end();
+        if (event.shouldCommit()) {
+            event.backend = backend;
+            event.generatorId = id;
+            event.yields = yields;
+            event.done = done;
+            event.commit();
+        }
+    }
+
+    /**
+     * Called by the producer when it suspends.
+     */
+    public void suspended() {
+        GeneratorSuspendEvent event = new GeneratorSuspendEvent();
+        if (event.shouldCommit()) {
+            event.backend = backend;
+            event.generatorId = id;
+            event.stackFrames = StackWalker.getInstance().walk(frames -> (int) frames.count());
+            event.commit();
+        }
+    }
+
+    /**
+     * Called by the producer when a yield could not suspend it.
+     *
+     * @param reason the reason the continuation is pinned, e.g. <code>MONITOR</code>.
+     */
+    public void pinned(String reason) {
+        GeneratorPinnedEvent event = new GeneratorPinnedEvent();
+        if (event.shouldCommit()) {
+            event.backend = backend;
+            event.generatorId = id;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts a value of a thread based generator, which is not resumed.
+     */
+    public void yielded() {
+        yields++;
+    }
+
+    /**
+     * @param producer <code>true</code> if the producer waits for the consumer.
+     */
+    public GeneratorParkEvent beginPark(boolean producer) {
+        GeneratorParkEvent event = new GeneratorParkEvent();
+        event.producer = producer;
+        event.begin();
+        return event;
+    }
+
+    public void endPark(GeneratorParkEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.backend = backend;
+            event.generatorId = id;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits the {@link GeneratorEndEvent}. Only the first call per generator has an effect.
+     */
+    public void ended(Outcome outcome) {
+        if (end(outcome) && cleanable != null) {
+            cleanable.clean();
+        }
+    }
+
+    private boolean end(Outcome outcome) {
+        if (!ended.compareAndSet(false, true)) {
+            return false;
+        }
+        GeneratorEndEvent event = new GeneratorEndEvent();
+        if (event.shouldCommit()) {
+            event.backend = backend;
+            event.generatorId = id;
+            event.outcome = outcome.name();
+            event.resumes = resumes;
+            event.yields = yields;
+            event.commit();
+        }
+        return true;
+    }
+
+    /**
+     * Holds the cleaner, so its thread is only started once abandonment is tracked.
+     */
+    private static final class Abandonment {
+        private static final Cleaner CLEANER = Cleaner.create();
+    }
+}
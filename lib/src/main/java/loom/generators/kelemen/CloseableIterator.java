@@ -0,0 +1,15 @@
+package loom.generators.kelemen;
+
+import java.util.Iterator;
+
+/**
+ * An iterator which stops its producer when closed.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+    /**
+     * Stops and interrupts the producer and waits until it has terminated, but at most
+     * {@link GeneratorFactories#CLOSE_TIMEOUT}. Does nothing if the iterator is already exhausted.
+     */
+    @Override
+    void close();
+}
@@ -1,11 +1,11 @@
 package loom.generators.kelemen;
 
-import java.lang.ref.PhantomReference;
-import java.lang.ref.ReferenceQueue;
-import java.util.Iterator;
+import java.lang.ref.Cleaner;
+import java.time.Duration;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicReference;
+import loom.generators.jfr.GeneratorParkEvent;
+import loom.generators.jfr.GeneratorTracker;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.collections.ReservablePollingQueues;
 import org.jtrim2.collections.ReservedElementRef;
@@ -16,7 +16,15 @@ import org.jtrim2.event.ListenerRef;
 import org.jtrim2.utils.ExceptionHelper;
 
 public final class GeneratorFactories {
-    public static <T> Iterator<T> toIterator(ForEachable<T> forEachable) {
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final boolean EVENTS = GeneratorTracker.isEnabled("kelemen");
+    /**
+     * How long closing an iterator waits for its producer thread after interrupting it. A producer which ignores
+     * the interrupt, e.g. because it blocks outside of its action, is left running afterwards.
+     */
+    public static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(1);
+
+    public static <T> CloseableIterator<T> toIterator(ForEachable<T> forEachable) {
         Objects.requireNonNull(forEachable, "forEachable");
 
         var queue = TerminableQueues
@@ -36,17 +44,25 @@ public final class GeneratorFactories {
             }
         };
 
+        // only the consumer references the queue wrapper, so it is abandoned with the iterator
+        GeneratorTracker tracker = EVENTS ? GeneratorTracker.track("kelemen", queueWrapper) : null;
+
         var cleanupRef = registerCleanupAction(queueWrapper, queue::shutdown);
 
         Object owner = new Object();
-        Thread.startVirtualThread(() -> {
+        Thread producerThread = Thread.startVirtualThread(() -> {
             try {
                 forEachable.forEach(e -> {
                     Objects.requireNonNull(e, "e");
+                    GeneratorParkEvent event = tracker != null ? tracker.beginPark(true) : null;
                     try {
                         queue.put(Cancellation.UNCANCELABLE_TOKEN, new ValueOrException<>(e, null));
                     } catch (TerminatedQueueException ex) {
                         throw new StoppedGeneratorException(owner);
+                    } finally {
+                        if (event != null) {
+                            tracker.endPark(event);
+                        }
                     }
                 });
             } catch (StoppedGeneratorException e) {
@@ -62,8 +78,25 @@ public final class GeneratorFactories {
             }
         });
 
-        return new Iterator<>() {
-            private ReservedElementRef<ValueOrException<T>> nextRef = queueWrapper.get();
+        return new CloseableIterator<>() {
+            private ReservedElementRef<ValueOrException<T>> nextRef = take();
+
+            private ReservedElementRef<ValueOrException<T>> take() {
+                if (tracker == null) {
+                    return queueWrapper.get();
+                }
+                GeneratorParkEvent event = tracker.beginPark(false);
+                var ref = queueWrapper.get();
+                tracker.endPark(event);
+                if (ref == null) {
+                    tracker.ended(GeneratorTracker.Outcome.COMPLETED);
+                } else if (ref.element().exception() != null) {
+                    tracker.ended(GeneratorTracker.Outcome.FAILED);
+                } else {
+                    tracker.yielded();
+                }
+                return ref;
+            }
 
             @Override
             public boolean hasNext() {
@@ -78,48 +111,143 @@ public final class GeneratorFactories {
                 }
 
                 result.release();
-                nextRef = queueWrapper.get();
+                nextRef = take();
                 if (nextRef == null) {
                     cleanupRef.unregister();
                     queueWrapper.shutdown();
                 }
                 return result.element().getOrThrow();
             }
+
+            @Override
+            public void close() {
+                var result = nextRef;
+                if (result == null) {
+                    return;
+                }
+                nextRef = null;
+                result.release();
+                if (tracker != null) {
+                    tracker.ended(GeneratorTracker.Outcome.CLOSED);
+                }
+                cleanupRef.unregister();
+                queueWrapper.shutdown();
+                stop(producerThread);
+            }
         };
     }
 
-    private static ListenerRef registerCleanupAction(Object obj, Runnable cleanupAction) {
-        Objects.requireNonNull(obj, "obj");
-        Objects.requireNonNull(cleanupAction, "cleanupAction");
+    /**
+     * Like {@link #toIterator(ForEachable)}, but hands the elements over through a lock-free single-producer/
+     * single-consumer ring instead of a jtrim queue, so the producer can run up to <code>capacity</code> elements
+     * ahead of the consumer. An exception of the producer is thrown by the iterator after the elements produced
+     * before it.
+     */
+    public static <T> CloseableIterator<T> toRingBufferIterator(ForEachable<T> forEachable, int capacity) {
+        Objects.requireNonNull(forEachable, "forEachable");
 
-        var referenceQueue = new ReferenceQueue<>();
-        var phantomRef = new PhantomReference<Object>(obj, referenceQueue) {
-            public void clean() {
-                cleanupAction.run();
-            }
-        };
+        Object owner = new Object();
+        // only the iterator references the consumer token, so it is abandoned with the iterator
+        Object consumerToken = new Object();
+        GeneratorTracker tracker = EVENTS ? GeneratorTracker.track("kelemen", consumerToken) : null;
+        var ring = new SpscRingBuffer<T>(capacity, owner, tracker);
 
-        var cleanupThreadRef = new AtomicReference<>(Thread.startVirtualThread(() -> {
-            boolean canceled = false;
+        Thread producerThread = Thread.startVirtualThread(() -> {
+            Throwable failure = null;
             try {
-                referenceQueue.remove();
-            } catch (InterruptedException e) {
-                canceled = true;
+                forEachable.forEach(e -> ring.put(Objects.requireNonNull(e, "e")));
+            } catch (StoppedGeneratorException e) {
+                if (!owner.equals(e.owner())) {
+                    failure = e;
+                }
+                // else: consumer went away.
+            } catch (Throwable e) {
+                failure = e;
             } finally {
-                if (!canceled) {
-                    phantomRef.clean();
+                ring.finish(failure);
+            }
+        });
+
+        return new CloseableIterator<>() {
+            private final Cleaner.Cleanable cleanable = CLEANER.register(this, ring::close);
+            private final Object token = consumerToken;
+            private T next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    next = ring.take();
+                    if (next == null) {
+                        done = true;
+                        cleanable.clean();
+                        if (tracker != null) {
+                            tracker.ended(ring.failure() == null
+                                    ? GeneratorTracker.Outcome.COMPLETED
+                                    : GeneratorTracker.Outcome.FAILED);
+                        }
+                        ExceptionHelper.rethrowIfNotNull(ring.failure());
+                    } else if (tracker != null) {
+                        tracker.yielded();
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                T result = next;
+                next = null;
+                return result;
             }
-        }));
 
-        return () -> {
-            var cleanupThread = cleanupThreadRef.getAndSet(null);
-            if (cleanupThread != null) {
-                cleanupThread.interrupt();
+            @Override
+            public void close() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                next = null;
+                if (tracker != null) {
+                    tracker.ended(GeneratorTracker.Outcome.CLOSED);
+                }
+                cleanable.clean();
+                stop(producerThread);
             }
         };
     }
 
+    /**
+     * Interrupts the producer thread and waits at most {@link #CLOSE_TIMEOUT} until its finally blocks have run.
+     */
+    private static void stop(Thread producerThread) {
+        producerThread.interrupt();
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                producerThread.join(Duration.ofNanos(deadline - System.nanoTime()));
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ListenerRef registerCleanupAction(Object obj, Runnable cleanupAction) {
+        Objects.requireNonNull(obj, "obj");
+        Objects.requireNonNull(cleanupAction, "cleanupAction");
+
+        var cleanable = CLEANER.register(obj, cleanupAction);
+        return cleanable::clean;
+    }
+
     private static <T> void putException(
             TerminableQueue<ValueOrException<T>> queue,
             Throwable exception
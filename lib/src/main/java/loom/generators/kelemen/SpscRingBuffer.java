@@ -0,0 +1,260 @@
+package loom.generators.kelemen;
+
+import java.util.concurrent.locks.LockSupport;
+import loom.generators.jfr.GeneratorParkEvent;
+import loom.generators.jfr.GeneratorTracker;
+
+/**
+ * Bounded single-producer/single-consumer ring. Elements are handed over without locks: the producer only writes
+ * {@link #tail}, the consumer only writes {@link #head}, and both indices sit on their own cache lines. Each side
+ * caches the index of the other side and only rereads it when the ring looks full or empty. A side which has to
+ * wait spins, then yields, and finally parks until the other side wakes it up. A parked producer is only woken up once
+ * half of the ring is free again, so producer and consumer do not take turns for every element.
+ * <p>
+ * The end of the elements and a failure of the producer are signalled out-of-band by {@link #finish(Throwable)},
+ * so elements are not wrapped.
+ */
+final class SpscRingBuffer<T> extends SpscRingBufferPad2 {
+    /**
+     * Spinning and yielding only help if the other side can run on another core at the same time, otherwise they
+     * just delay it.
+     */
+    private static final boolean MULTIPROCESSOR = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int SPINS = MULTIPROCESSOR ? 128 : 0;
+    private static final int PRODUCER_YIELDS = MULTIPROCESSOR ? 16 : 0;
+    /**
+     * A waiting consumer yields even on a single core, so the producer can fill the ring before the consumer parks
+     * and has to be woken up for every element.
+     */
+    private static final int CONSUMER_YIELDS = 16;
+
+    private final Object[] buffer;
+    private final int mask;
+    /**
+     * Maximum number of elements in the ring, the buffer itself may be larger.
+     */
+    private final int capacity;
+    /**
+     * Number of free slots a parked producer waits for.
+     */
+    private final int wakeupThreshold;
+    private final Object owner;
+    /**
+     * Emits a park event whenever a side parks, <code>null</code> if events are not enabled.
+     */
+    private final GeneratorTracker tracker;
+
+    private volatile Thread producerWaiter;
+    private volatile Thread consumerWaiter;
+    private volatile boolean closed;
+    private volatile boolean done;
+    private Throwable failure;
+
+    /**
+     * @param capacity the number of elements the producer can run ahead of the consumer.
+     * @param owner    identifies the {@link StoppedGeneratorException} thrown by {@link #put(Object)} after
+     *                 {@link #close()}.
+     * @param tracker  emits the park events, may be <code>null</code>.
+     */
+    SpscRingBuffer(int capacity, Object owner, GeneratorTracker tracker) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.wakeupThreshold = Math.max(1, capacity / 2);
+        this.owner = owner;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Only called by the producer. Waits while the ring is full.
+     *
+     * @throws StoppedGeneratorException if the consumer closed the ring.
+     */
+    void put(T element) {
+        if (closed) {
+            throw new StoppedGeneratorException(owner);
+        }
+        long t = tail;
+        if (t - headCache >= capacity) {
+            headCache = head;
+            if (t - headCache >= capacity) {
+                awaitSpace(t);
+            }
+        }
+        buffer[(int) t & mask] = element;
+        tail = t + 1;
+        Thread waiter = consumerWaiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void awaitSpace(long t) {
+        int tries = 0;
+        while (true) {
+            if (closed) {
+                throw new StoppedGeneratorException(owner);
+            }
+            headCache = head;
+            if (t - headCache < capacity) {
+                return;
+            }
+            if (tries < SPINS) {
+                Thread.onSpinWait();
+            } else if (tries < SPINS + PRODUCER_YIELDS) {
+                Thread.yield();
+            } else {
+                producerWaiter = Thread.currentThread();
+                if (!closed && !hasFreeSlots(t, head)) {
+                    park(true);
+                }
+                producerWaiter = null;
+            }
+            tries++;
+        }
+    }
+
+    /**
+     * Only called by the producer after its last {@link #put(Object)}.
+     *
+     * @param failure the exception the producer terminated with, <code>null</code> if it completed normally.
+     */
+    void finish(Throwable failure) {
+        this.failure = failure;
+        done = true;
+        Thread waiter = consumerWaiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Only called by the consumer. Waits while the ring is empty and the producer has not finished.
+     *
+     * @return the next element, <code>null</code> if the producer has finished and all elements were taken.
+     */
+    T take() {
+        long h = head;
+        if (h >= tailCache) {
+            tailCache = tail;
+            if (h >= tailCache && !awaitElement(h)) {
+                return null;
+            }
+        }
+        int index = (int) h & mask;
+        @SuppressWarnings("unchecked")
+        T element = (T) buffer[index];
+        buffer[index] = null;
+        head = h + 1;
+        Thread waiter = producerWaiter;
+        if (waiter != null && hasFreeSlots(tail, h + 1)) {
+            LockSupport.unpark(waiter);
+        }
+        return element;
+    }
+
+    private boolean hasFreeSlots(long t, long h) {
+        return capacity - (t - h) >= wakeupThreshold;
+    }
+
+    private boolean awaitElement(long h) {
+        int tries = 0;
+        while (true) {
+            if (done) {
+                // elements put before finish() are visible once done is
+                tailCache = tail;
+                return h < tailCache;
+            }
+            tailCache = tail;
+            if (h < tailCache) {
+                return true;
+            }
+            if (tries < SPINS) {
+                Thread.onSpinWait();
+            } else if (tries < SPINS + CONSUMER_YIELDS) {
+                Thread.yield();
+            } else {
+                consumerWaiter = Thread.currentThread();
+                if (!done && h >= tail) {
+                    park(false);
+                }
+                consumerWaiter = null;
+            }
+            tries++;
+        }
+    }
+
+    private void park(boolean producer) {
+        if (tracker == null) {
+            LockSupport.park(this);
+            return;
+        }
+        GeneratorParkEvent event = tracker.beginPark(producer);
+        LockSupport.park(this);
+        tracker.endPark(event);
+    }
+
+    /**
+     * The exception the producer terminated with. Only valid after {@link #take()} returned <code>null</code>.
+     */
+    Throwable failure() {
+        return failure;
+    }
+
+    /**
+     * Stops the producer: its next or pending {@link #put(Object)} throws {@link StoppedGeneratorException}. Must
+     * not reference the iterator, since it is also its cleaning action.
+     */
+    void close() {
+        closed = true;
+        Thread waiter = producerWaiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
+
+/*
+ * Padding keeps the producer and the consumer indices on separate cache lines, and both away from the fields of
+ * neighbouring objects.
+ */
+abstract class SpscRingBufferPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SpscRingBufferTail extends SpscRingBufferPad0 {
+    /**
+     * Index of the next element the producer puts.
+     */
+    volatile long tail;
+    /**
+     * Last value of {@link SpscRingBufferHead#head} the producer has read.
+     */
+    long headCache;
+}
+
+abstract class SpscRingBufferPad1 extends SpscRingBufferTail {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class SpscRingBufferHead extends SpscRingBufferPad1 {
+    /**
+     * Index of the next element the consumer takes.
+     */
+    volatile long head;
+    /**
+     * Last value of {@link SpscRingBufferTail#tail} the consumer has read.
+     */
+    long tailCache;
+}
+
+abstract class SpscRingBufferPad2 extends SpscRingBufferHead {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
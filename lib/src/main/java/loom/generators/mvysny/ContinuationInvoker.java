@@ -1,31 +1,93 @@
 package loom.generators.mvysny;
 
+import loom.generators.jfr.GeneratorResumeEvent;
+import loom.generators.jfr.GeneratorTracker;
+
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Runs given {@link Runnable} as a series of continuations.
  */
 public final class ContinuationInvoker {
 
+    /**
+     * If <code>true</code> the {@link Mode#DIRECT} mode checks that every continuation runs synchronously, like the
+     * {@link Mode#QUEUE} mode always does. Enabled by assertions or the system property
+     * <code>loom.generators.mvysny.debug</code>.
+     */
+    private static final boolean CHECK_INVARIANTS;
+
+    static {
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        CHECK_INVARIANTS = assertionsEnabled || Boolean.getBoolean("loom.generators.mvysny.debug");
+    }
+
+    private static final boolean EVENTS = GeneratorTracker.isEnabled("mvysny");
+
+    /**
+     * How the suspended {@link #runnable} is resumed.
+     */
+    public enum Mode {
+        /**
+         * {@link #next()} offers an item to a queue the runnable waits on in {@link #suspend()}.
+         */
+        QUEUE,
+        /**
+         * {@link #next()} unparks the virtual thread of the runnable, which parks itself in {@link #suspend()}.
+         * Avoids the lock and the queue node of every {@link Mode#QUEUE} step.
+         */
+        DIRECT
+    }
+
     /**
      * The {@link #runnable} to run. Will be run in a virtual thread. The runnable will call {@link #suspend()}.
      * if it needs to suspend.
      */
     private final Runnable runnable;
 
+    private final Mode mode;
+
     /**
      * If <code>true</code> the {@link #runnable} has finished its execution and there will be no more executions
      * to run.
      */
     private volatile boolean executionDone = false;
 
+    /**
+     * Set by {@link #close()} before the suspended {@link #runnable} is resumed for the last time.
+     */
+    private volatile boolean closing = false;
+
+    /**
+     * Set if the {@link #runnable} terminated with an exception.
+     */
+    private volatile boolean failed = false;
+
+    /**
+     * Emits the JFR events of this invoker, <code>null</code> if they are not enabled.
+     */
+    private final GeneratorTracker tracker;
+
     private BlockingQueue<Object> continuationUnpark = null;
 
+    /**
+     * The virtual thread running the {@link #runnable}, <code>null</code> until the first {@link #next()}.
+     */
+    private Thread thread = null;
+
+    /**
+     * Set by {@link #next()} in {@link Mode#DIRECT} mode before it unparks the runnable, so {@link #suspend()} can
+     * tell a resumption from a spurious wakeup.
+     */
+    private volatile boolean resumed = false;
+
     /**
      * Used to assert that continuation.unpark() is invoked synchronously from {@link Thread#start()} and
      * continuationUnpark.take(), otherwise this class won't work properly.
@@ -37,7 +99,13 @@ public final class ContinuationInvoker {
      * you need to call {@link #next()}.
      */
     public ContinuationInvoker(Runnable runnable) {
+        this(runnable, Mode.QUEUE);
+    }
+
+    public ContinuationInvoker(Runnable runnable, Mode mode) {
         this.runnable = Objects.requireNonNull(runnable);
+        this.mode = Objects.requireNonNull(mode);
+        this.tracker = EVENTS ? GeneratorTracker.track("mvysny", this) : null;
     }
 
     public boolean isDone() {
@@ -51,41 +119,64 @@ public final class ContinuationInvoker {
      *         {@link #runnable} finished its execution.
      */
     public boolean next() {
+        if (tracker == null) {
+            return advance();
+        }
+        GeneratorResumeEvent event = tracker.beginResume();
+        boolean more = advance();
+        tracker.endResume(event, more ? 1 : 0, !more);
+        if (!more) {
+            tracker.ended(failed ? GeneratorTracker.Outcome.FAILED : GeneratorTracker.Outcome.COMPLETED);
+        }
+        return more;
+    }
+
+    private boolean advance() {
         if (isDone()) {
             throw new IllegalStateException("Execution is done!");
         }
 
-        if (continuationUnpark == null) {
+        if (thread == null) {
             // First invocation of next() function. Let's create the virtual thread factory.
             // The factory runs the continuations directly instead of submitting them into a runner.
-            final Executor synchronousExecutor = command -> {
+            final boolean countContinuations = mode == Mode.QUEUE || CHECK_INVARIANTS;
+            final Executor synchronousExecutor = countContinuations ? command -> {
                 try {
                     command.run();
                 } finally {
                     continuationsInvoked.incrementAndGet();
                 }
-            };
+            } : Runnable::run;
 
             final ThreadFactory virtualThreadFactory = Util.newVirtualBuilder(synchronousExecutor).factory();
-            final Thread thread = virtualThreadFactory.newThread(() -> {
+            thread = virtualThreadFactory.newThread(() -> {
                 try {
                     runnable.run();
+                } catch (ClosedException e) {
+                    // closed while suspended
+                } catch (RuntimeException | Error e) {
+                    failed = true;
+                    throw e;
                 } finally {
                     executionDone = true;
                 }
             });
-            continuationUnpark = new LinkedBlockingQueue<>(1);
+            if (mode == Mode.QUEUE) {
+                continuationUnpark = new LinkedBlockingQueue<>(1);
+            }
 
             // VirtualThread.start() runs the first continuation immediately via the synchronousExecutor,
             // which executes it right away. That causes VirtualThread.start() to block until its continuation
             // finishes or suspends via this.suspend().
             thread.start();
 
-            if (continuationsInvoked.get() != 1) {
+            if (countContinuations && continuationsInvoked.get() != 1) {
                 throw new IllegalStateException("Expected to run the continuation in VirtualThread.start() but nothing was done");
             }
 
             return !isDone();
+        } else if (mode == Mode.DIRECT) {
+            return resume();
         } else {
             // This deque is populated only from this function, and then it's cleaned immediately.
             // Therefore, it must be empty.
@@ -125,20 +216,59 @@ public final class ContinuationInvoker {
         }
     }
 
+    /**
+     * Resumes the runnable parked in {@link #suspend()}. Unparking the virtual thread submits its continuation to
+     * the synchronous executor, so the runnable runs on this thread until it parks again or terminates, and only
+     * then <code>unpark()</code> returns.
+     */
+    private boolean resume() {
+        final int invocationCount = CHECK_INVARIANTS ? continuationsInvoked.get() : 0;
+        resumed = true;
+        LockSupport.unpark(thread);
+        if (CHECK_INVARIANTS) {
+            if (continuationsInvoked.get() != invocationCount + 1) {
+                throw new IllegalStateException("Expected to run the continuation in unpark() but nothing was done");
+            }
+            if (!isDone() && resumed) {
+                throw new IllegalStateException("Runnable is only allowed to call this.suspend() but it blocked in another way");
+            }
+        }
+        return !isDone();
+    }
+
     /**
      * Only {@link #runnable} is allowed to call this. Suspends the execution of the {@link #runnable} and causes
      * the ongoing call to {@link #next()} to return.
      */
     public void suspend() {
+        if (mode == Mode.DIRECT) {
+            if (CHECK_INVARIANTS && Thread.currentThread() != thread) {
+                throw new IllegalStateException("Can only be called from this.runnable");
+            }
+            if (tracker != null) {
+                tracker.suspended();
+            }
+            resumed = false;
+            do {
+                LockSupport.park(this);
+            } while (!resumed);
+            if (closing) {
+                throw new ClosedException();
+            }
+            return;
+        }
         if (!Thread.currentThread().isVirtual()) {
             // this.runnable runs in a virtual thread. If the current thread isn't virtual, it's most definitely not called from this.runnable.
             throw new IllegalStateException("Can only be called from this.runnable");
         }
-        if (continuationUnpark == null) {
+        if (thread == null) {
             // next() hasn't been called, therefore this.runnable isn't running and therefore can't be the
             // one calling this function.
             throw new IllegalStateException("Can only be called from this.runnable");
         }
+        if (tracker != null) {
+            tracker.suspended();
+        }
         if (!continuationUnpark.isEmpty()) {
             // The execution flow is as follows:
             // 1. this.runnable is stuck in this.suspend(), which means that the queue is empty.
@@ -157,5 +287,37 @@ public final class ContinuationInvoker {
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
+        if (closing) {
+            throw new ClosedException();
+        }
+    }
+
+    /**
+     * Terminates the execution of the {@link #runnable}. If it is suspended, it is resumed and {@link #suspend()}
+     * throws, so the finally blocks of the runnable have run when this method returns. If {@link #next()} was not
+     * called yet, the runnable is never run.
+     */
+    public void close() {
+        if (isDone()) {
+            return;
+        }
+        if (tracker != null) {
+            tracker.ended(GeneratorTracker.Outcome.CLOSED);
+        }
+        if (thread == null) {
+            executionDone = true;
+            return;
+        }
+        closing = true;
+        advance();
+    }
+
+    /**
+     * Thrown by {@link #suspend()} to unwind a closed runnable.
+     */
+    private static final class ClosedException extends RuntimeException {
+        ClosedException() {
+            super("continuation-closed", null, false, false);
+        }
     }
 }
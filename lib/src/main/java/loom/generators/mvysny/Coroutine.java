@@ -1,6 +1,10 @@
 package loom.generators.mvysny;
 
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 public class Coroutine {
 
@@ -10,6 +14,10 @@ public class Coroutine {
          * This will temporarily hold the item passed to {@link #yield(E)}.
          */
         private E item;
+        /**
+         * If set, {@link #yield(E)} passes items straight to this consumer instead of suspending.
+         */
+        private Consumer<? super E> consumer = null;
 
         /**
          * Generate an item. The item is immediately returned via {@link Iterator#next()}.
@@ -17,10 +25,29 @@ public class Coroutine {
          * @param item the item to be returned by the iterator, may be null.
          */
         public void yield(E item) {
+            if (consumer != null) {
+                consumer.accept(item);
+                return;
+            }
             this.item = item;
             continuationInvoker.suspend();
         }
 
+        /**
+         * Yields all elements of the inner iterable, like {@link Generators.Yieldable#yieldFrom(GeneratorService)}. A
+         * generator of the <code>loom.generators</code> package which was not pulled from yet runs its producer right
+         * here with its yield bound to this one, so its elements don't pass through another continuation. Other
+         * iterables are pulled in batches. A <code>null</code> element ends this generator, as if it was yielded here.
+         */
+        public void yieldFrom(Iterable<? extends E> inner) {
+            Generators.Yieldable<E> yieldable = this::yield;
+            yieldable.yieldFrom(asGenerator(inner));
+        }
+
+        private static <E> GeneratorService<E> asGenerator(Iterable<E> iterable) {
+            return iterable instanceof GeneratorService<E> generator ? generator : iterable::iterator;
+        }
+
         public E getItem() {
             return item;
         }
@@ -32,6 +59,10 @@ public class Coroutine {
         public void setContinuationInvoker(ContinuationInvoker continuationInvoker) {
             this.continuationInvoker = continuationInvoker;
         }
+
+        public void setConsumer(Consumer<? super E> consumer) {
+            this.consumer = consumer;
+        }
     }
 
 }
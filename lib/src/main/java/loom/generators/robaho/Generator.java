@@ -1,6 +1,11 @@
 package loom.generators.robaho;
 
+import loom.generators.jfr.GeneratorParkEvent;
+import loom.generators.jfr.GeneratorTracker;
+
+import java.lang.ref.Cleaner;
 import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -9,30 +14,59 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
 public class Generator<T> implements Iterable<T> {
+    /**
+     * Closes the producers of abandoned iterators. Shared by all generators instead of a finalizer per iterator.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final boolean EVENTS = GeneratorTracker.isEnabled("robaho");
+    /** how long {@link CloseableIterator#close()} waits for the producer thread */
+    public static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(1);
+
     private final Producer<T> producer;
+    private final Mode mode;
 
     public Generator(Producer<T> producer) {
+        this(producer, Mode.SEMAPHORE);
+    }
+
+    public Generator(Producer<T> producer, Mode mode) {
         this.producer = producer;
+        this.mode = Objects.requireNonNull(mode);
     }
 
     @Override
-    public Iterator<T> iterator() {
+    public CloseableIterator<T> iterator() {
+        if(mode == Mode.EXCHANGER) {
+            return new ExchangerIteratorImpl<>(producer);
+        }
         IteratorImpl<T> itr = new IteratorImpl<>();
         new ProducerImpl<T>(producer,itr);
         return itr;
     }
 
+    /** how values are handed over from the producer thread to the consumer */
+    public enum Mode {
+        /** a semaphore signals requests, the value is passed through an atomic reference */
+        SEMAPHORE,
+        /** requests and values are passed through a single state word, see {@link Rendezvous} */
+        EXCHANGER
+    }
+
     private static class ProducerImpl<T> implements Callback<T> {
         private final WeakReference<IteratorImpl<T>> itrRef;
         private final Semaphore ready = new Semaphore(0);
+        private final Thread thread;
+        private final GeneratorTracker tracker;
+        private volatile boolean closed;
 
         ProducerImpl(Producer<T> producer,IteratorImpl<T> itr) {
             itrRef = new WeakReference<>(itr);
+            tracker = itr.tracker;
             itr.setProducer(this);
-            Thread.startVirtualThread(() -> {
+            thread = Thread.startVirtualThread(() -> {
                 try {
                     ready.acquire();
-                    if(itrRef.get()==null)
+                    if(closed || itrRef.get()==null)
                         return;
                     producer.run(ProducerImpl.this);
                 } catch (InterruptedException ignore) {
@@ -47,13 +81,19 @@ public class Generator<T> implements Iterable<T> {
 
         @Override
         public boolean yield(T value) {
+            if(closed) return false;
             pushValue(value);
+            GeneratorParkEvent event = tracker==null ? null : tracker.beginPark(true);
             try {
                 ready.acquire();
             } catch (InterruptedException e) {
+                // interrupted by close(), which also interrupts whatever the producer blocks in next
+                Thread.currentThread().interrupt();
                 return false;
+            } finally {
+                if(event!=null) tracker.endPark(event);
             }
-            return Objects.nonNull(itrRef.get());
+            return !closed && Objects.nonNull(itrRef.get());
         }
 
         private boolean pushValue(T value) {
@@ -62,19 +102,24 @@ public class Generator<T> implements Iterable<T> {
             return itr.newValue(value);
         }
 
-        private void ready() {
+        /** must not reference the iterator, it is the cleaning action of the iterator */
+        private void close() {
+            closed = true;
             this.ready.release();
         }
     }
 
-    private static class IteratorImpl<T> implements Iterator<T> {
+    private static class IteratorImpl<T> implements CloseableIterator<T> {
         private final AtomicReference<T> next = new AtomicReference<>();
         private volatile boolean done;
         private ProducerImpl<T> producer;
+        private Cleaner.Cleanable cleanable;
         private volatile Thread reader;
+        private final GeneratorTracker tracker = EVENTS ? GeneratorTracker.track("robaho", this) : null;
 
         private void setProducer(ProducerImpl<T> producer) {
             this.producer = producer;
+            this.cleanable = CLEANER.register(this, producer::close);
         }
 
         @Override
@@ -88,8 +133,18 @@ public class Generator<T> implements Iterable<T> {
                     producer.ready.release();
                     released=true;
                 }
-                if(done) return false;
-                LockSupport.park();
+                if(done) {
+                    cleanable.clean();
+                    if(tracker!=null) tracker.ended(GeneratorTracker.Outcome.COMPLETED);
+                    return false;
+                }
+                if(tracker==null) {
+                    LockSupport.park();
+                } else {
+                    GeneratorParkEvent event = tracker.beginPark(false);
+                    LockSupport.park();
+                    tracker.endPark(event);
+                }
             }
         }
 
@@ -97,6 +152,7 @@ public class Generator<T> implements Iterable<T> {
         public T next() {
             reader = Thread.currentThread();
             if(!hasNext()) throw new NoSuchElementException();
+            if(tracker!=null) tracker.yielded();
             return next.getAndSet(null);
         }
 
@@ -109,9 +165,103 @@ public class Generator<T> implements Iterable<T> {
             done=true;
             LockSupport.unpark(reader);
         }
-        protected void finalize() throws Throwable {
-            producer.ready();
+
+        @Override
+        public void close() {
+            if(tracker!=null) tracker.ended(GeneratorTracker.Outcome.CLOSED);
+            cleanable.clean();
+            next.set(null);
+            stop(producer.thread);
+        }
+    }
+
+    /** interrupts the producer thread and waits at most {@link #CLOSE_TIMEOUT} until its finally blocks have run */
+    private static void stop(Thread thread) {
+        thread.interrupt();
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                thread.join(Duration.ofNanos(deadline - System.nanoTime()));
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
         }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static class ExchangerIteratorImpl<T> implements CloseableIterator<T> {
+        /** marks the end of the values, since the producer may yield null */
+        private static final Object END = new Object();
+
+        private final Rendezvous<T> rendezvous;
+        private final Thread thread;
+        private final Cleaner.Cleanable cleanable;
+        private final GeneratorTracker tracker;
+        private Object next = END;
+        private boolean done;
+
+        ExchangerIteratorImpl(Producer<T> producer) {
+            tracker = EVENTS ? GeneratorTracker.track("robaho", this) : null;
+            // the producer thread must not reference the iterator, so that abandoned iterators can be cleaned
+            Rendezvous<T> rendezvous = new Rendezvous<>(tracker);
+            this.rendezvous = rendezvous;
+            thread = Thread.startVirtualThread(() -> {
+                try {
+                    if(rendezvous.awaitFirstRequest())
+                        producer.run(rendezvous::offer);
+                } finally {
+                    rendezvous.finish();
+                }
+            });
+            cleanable = CLEANER.register(this, rendezvous::close);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            if(next==END && !done) {
+                next = rendezvous.take((T) END);
+                if(next==END) {
+                    done = true;
+                    cleanable.clean();
+                    if(tracker!=null) tracker.ended(GeneratorTracker.Outcome.COMPLETED);
+                } else if(tracker!=null) {
+                    tracker.yielded();
+                }
+            }
+            return next!=END;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            T value = (T) next;
+            next = END;
+            return value;
+        }
+
+        @Override
+        public void close() {
+            if(done) return;
+            done = true;
+            next = END;
+            if(tracker!=null) tracker.ended(GeneratorTracker.Outcome.CLOSED);
+            cleanable.clean();
+            stop(thread);
+        }
+    }
+
+    public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+        /**
+         * Terminates the producer: its pending and future yields return false and its thread is interrupted. Waits at
+         * most {@link Generator#CLOSE_TIMEOUT} until its finally blocks have run, a producer which ignores both keeps
+         * running.
+         */
+        @Override
+        void close();
     }
 
     public interface Producer<T> {
@@ -0,0 +1,148 @@
+package loom.generators.robaho;
+
+import loom.generators.jfr.GeneratorParkEvent;
+import loom.generators.jfr.GeneratorTracker;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands values from a producer thread to a consumer thread through a single state word. The word is
+ * {@link #IDLE} while the consumer does not wait for a value, {@link #REQUEST} while it does, the value itself once
+ * the producer delivered it, and {@link #DONE} or {@link #CLOSED} at the end. A waiting side spins briefly and then
+ * parks. The other side only unparks it if it actually parked, so every handoff costs at most one park/unpark pair.
+ */
+final class Rendezvous<T> {
+    private static final Object IDLE = new Object();
+    private static final Object REQUEST = new Object();
+    private static final Object DONE = new Object();
+    private static final Object CLOSED = new Object();
+    /**
+     * Stands for a <code>null</code> value.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * Spinning only helps if the other side runs on another core at the same time.
+     */
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 64 : 0;
+
+    private final AtomicReference<Object> state = new AtomicReference<>(IDLE);
+    private volatile Thread producerWaiter;
+    private volatile Thread consumerWaiter;
+    /**
+     * Emits a park event whenever a side parks, <code>null</code> if events are not enabled.
+     */
+    private final GeneratorTracker tracker;
+
+    Rendezvous(GeneratorTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    /**
+     * Only called by the producer before it produces the first value.
+     *
+     * @return <code>false</code> if the consumer closed the rendezvous before requesting a value.
+     */
+    boolean awaitFirstRequest() {
+        return awaitRequest();
+    }
+
+    /**
+     * Only called by the producer. Delivers the value for the pending request and waits for the next request.
+     *
+     * @return <code>false</code> if the producer should terminate.
+     */
+    boolean offer(T value) {
+        if (!state.compareAndSet(REQUEST, value == null ? NULL : value)) {
+            return false;
+        }
+        wakeUp(consumerWaiter);
+        return awaitRequest();
+    }
+
+    private boolean awaitRequest() {
+        int tries = 0;
+        while (true) {
+            Object s = state.get();
+            if (s == REQUEST) {
+                return true;
+            }
+            if (s == CLOSED) {
+                return false;
+            }
+            if (tries++ < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                producerWaiter = Thread.currentThread();
+                if (state.get() == s) {
+                    park(true);
+                }
+                producerWaiter = null;
+            }
+        }
+    }
+
+    /**
+     * Only called by the producer after its last value.
+     */
+    void finish() {
+        if (state.compareAndSet(REQUEST, DONE) || state.compareAndSet(IDLE, DONE)) {
+            wakeUp(consumerWaiter);
+        }
+    }
+
+    /**
+     * Only called by the consumer. Requests the next value and waits for it.
+     *
+     * @param end returned if there are no more values.
+     */
+    @SuppressWarnings("unchecked")
+    T take(T end) {
+        if (state.compareAndSet(IDLE, REQUEST)) {
+            wakeUp(producerWaiter);
+        }
+        int tries = 0;
+        Object s;
+        while ((s = state.get()) == REQUEST) {
+            if (tries++ < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                consumerWaiter = Thread.currentThread();
+                if (state.get() == REQUEST) {
+                    park(false);
+                }
+                consumerWaiter = null;
+            }
+        }
+        if (s == DONE || s == CLOSED) {
+            return end;
+        }
+        state.set(IDLE);
+        return s == NULL ? null : (T) s;
+    }
+
+    /**
+     * Terminates the producer: a pending or future {@link #offer(Object)} returns <code>false</code>.
+     */
+    void close() {
+        state.set(CLOSED);
+        wakeUp(producerWaiter);
+    }
+
+    private void park(boolean producer) {
+        if (tracker == null) {
+            LockSupport.park(this);
+            return;
+        }
+        GeneratorParkEvent event = tracker.beginPark(producer);
+        LockSupport.park(this);
+        tracker.endPark(event);
+    }
+
+    private static void wakeUp(Thread waiter) {
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.Continuation;
+import jdk.internal.vm.ContinuationScope;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generator whose target can {@link #await(CompletionStage)} asynchronous results besides {@link #yield(Object)}ing
+ * values. While the target awaits an incomplete stage its continuation is suspended and no thread is blocked: the
+ * continuation is resumed by the thread completing the stage, which then also completes the future returned by
+ * {@link #nextAsync()}.
+ */
+public class AsyncGenerator<T> {
+
+    private static final ContinuationScope continuationScope = new ContinuationScope("AsyncGenerator");
+    /**
+     * States of {@link InternalContinuation#awaitState}: <code>whenComplete</code> is being called on the awaited
+     * stage, the stage completed before it returned, or it returned first and the callback resumes the target.
+     */
+    private static final int REGISTERING = 0;
+    private static final int COMPLETED = 1;
+    private static final int REGISTERED = 2;
+
+    private final InternalContinuation continuation;
+    /**
+     * The result of the pending {@link #nextAsync()}, <code>null</code> if none is pending. Guarded by
+     * <code>this</code>, like {@link #closed} and {@link #started}.
+     */
+    private CompletableFuture<T> request;
+    private boolean started;
+    private boolean closed;
+
+    public AsyncGenerator(Runnable target) {
+        continuation = new InternalContinuation(Objects.requireNonNull(target));
+    }
+
+    /**
+     * Hands <code>value</code> over to the pending {@link #nextAsync()} and suspends the target until the next one.
+     */
+    public static <T> void yield(T value) {
+        InternalContinuation c = getCurrentContinuation();
+        c.next = Objects.requireNonNull(value, "value");
+        suspend(c);
+    }
+
+    /**
+     * Suspends the target until <code>stage</code> is complete, without blocking the thread.
+     *
+     * @return the result of the stage.
+     * @throws CompletionException if the stage completed exceptionally, like {@link CompletableFuture#join()}.
+     */
+    public static <V> V await(CompletionStage<V> stage) {
+        InternalContinuation c = getCurrentContinuation();
+        // subclasses like the minimal stages throw on isDone and join, which resume() handles like any other stage
+        if (stage instanceof CompletableFuture<V> future && future.getClass() == CompletableFuture.class
+                && future.isDone()) {
+            return future.join();
+        }
+        c.awaiting = stage;
+        suspend(c);
+        Object result = c.awaitResult;
+        Throwable failure = c.awaitFailure;
+        c.awaitResult = null;
+        c.awaitFailure = null;
+        if (failure != null) {
+            throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+        }
+        @SuppressWarnings("unchecked")
+        V value = (V) result;
+        return value;
+    }
+
+    private static void suspend(InternalContinuation c) {
+        if (c.closing) {
+            throw new GeneratorClosedException();
+        }
+        Continuation.yield(continuationScope);
+        if (c.closing) {
+            throw new GeneratorClosedException();
+        }
+    }
+
+    private static InternalContinuation getCurrentContinuation() {
+        if (Continuation.getCurrentContinuation(continuationScope) instanceof InternalContinuation internal) {
+            return internal;
+        }
+        throw new IllegalStateException("Unexpected Continuation");
+    }
+
+    /**
+     * Resumes the target until it yields the next value.
+     *
+     * @return a future completed with the next value, with <code>null</code> if the target has finished or the
+     *         generator was closed, or exceptionally with the exception of the target.
+     * @throws IllegalStateException if the future of the previous call is not complete yet.
+     */
+    public CompletableFuture<T> nextAsync() {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        synchronized (this) {
+            if (request != null) {
+                throw new IllegalStateException("The previous nextAsync() is still pending");
+            }
+            if (closed || continuation.isDone()) {
+                result.complete(null);
+                return result;
+            }
+            started = true;
+            request = result;
+        }
+        resume();
+        return result;
+    }
+
+    /**
+     * Runs the target until it yields, awaits an incomplete stage or finishes. Called by {@link #nextAsync()} and by
+     * the thread completing an awaited stage. A stage which is already complete runs the callback of
+     * <code>whenComplete</code> on this stack, so the callback only records the result and the target is resumed by
+     * the loop instead of a nested call.
+     */
+    private void resume() {
+        InternalContinuation c = continuation;
+        while (true) {
+            Throwable failure = null;
+            try {
+                c.run();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            CompletionStage<?> awaiting = c.awaiting;
+            c.awaiting = null;
+            if (awaiting != null && failure == null) {
+                c.awaitState.set(REGISTERING);
+                awaiting.whenComplete((value, e) -> {
+                    c.awaitResult = value;
+                    c.awaitFailure = e;
+                    if (!c.awaitState.compareAndSet(REGISTERING, COMPLETED)) {
+                        resumeAwaiting();
+                    }
+                });
+                if (c.awaitState.compareAndSet(REGISTERING, REGISTERED)) {
+                    return;
+                }
+                // completed before whenComplete returned, the callback left resuming to this thread
+                synchronized (this) {
+                    c.closing = closed;
+                }
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            T next = (T) c.next;
+            c.next = null;
+            CompletableFuture<T> result;
+            boolean unwind;
+            synchronized (this) {
+                result = request;
+                request = null;
+                unwind = closed && !c.isDone();
+            }
+            if (unwind) {
+                closeSuspended();
+                next = null;
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(next);
+            }
+            return;
+        }
+    }
+
+    private void resumeAwaiting() {
+        synchronized (this) {
+            continuation.closing = closed;
+        }
+        resume();
+    }
+
+    public synchronized boolean isDone() {
+        return closed || (request == null && continuation.isDone());
+    }
+
+    /**
+     * Closes the generator. A target suspended in {@link #yield(Object)} is resumed and the yield throws
+     * {@link GeneratorClosedException}, so its finally blocks have run when this method returns. A target awaiting a
+     * stage is unwound the same way once the stage completes, and the pending {@link #nextAsync()} completes with
+     * <code>null</code>. The target of a generator which was not started is never run.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (request != null || !started || continuation.isDone()) {
+                return;
+            }
+        }
+        closeSuspended();
+    }
+
+    private void closeSuspended() {
+        InternalContinuation c = continuation;
+        c.closing = true;
+        c.next = null;
+        c.run();
+    }
+
+    private static final class InternalContinuation extends Continuation {
+        private Object next;
+        /**
+         * The stage the target awaits, handed from {@link #await(CompletionStage)} to {@link #resume()}.
+         */
+        private CompletionStage<?> awaiting;
+        private Object awaitResult;
+        private Throwable awaitFailure;
+        private final AtomicInteger awaitState = new AtomicInteger();
+        /**
+         * Set before resuming the target of a closed generator, so it is unwound.
+         */
+        private boolean closing;
+
+        InternalContinuation(Runnable target) {
+            super(continuationScope, () -> {
+                try {
+                    target.run();
+                } catch (GeneratorClosedException e) {
+                    // closed while suspended
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.Continuation;
+import jdk.internal.vm.ContinuationScope;
+
+import java.util.function.Function;
+
+/**
+ * A generator which also takes values from the consumer. {@link #resume(Object)} passes a value of type
+ * <code>I</code> into the target and runs it until it calls {@link #yield(Object)} with a value of type
+ * <code>O</code>, which <code>resume</code> returns. The yield returns the value of the next <code>resume</code>.
+ * The value of the first <code>resume</code> is the argument of the target, and the value the target returns is
+ * returned by the last <code>resume</code>. Both values of an exchange are kept in fields of the continuation, so an
+ * exchange is a single continuation switch and does not allocate.
+ * <p>
+ * Unlike {@link RunnableGenerator} a yield while the target holds a monitor cannot keep the value for later, since
+ * the target needs the reply to continue, so it throws {@link IllegalStateException}.
+ */
+public class Coroutine<I, O> {
+
+    private static final ContinuationScope continuationScope = new ContinuationScope("Coroutine");
+
+    private final InternalContinuation<I, O> continuation;
+    private boolean started;
+    private boolean closed;
+
+    public Coroutine(Function<? super I, ? extends O> target) {
+        continuation = new InternalContinuation<>(target);
+    }
+
+    /**
+     * Hands <code>out</code> over to the consumer and suspends the target until the consumer resumes it.
+     *
+     * @return the value passed to {@link #resume(Object)}.
+     * @throws GeneratorClosedException if the coroutine was closed while suspended.
+     */
+    public static <I, O> I yield(O out) {
+        InternalContinuation<I, O> internalContinuation = getCurrentContinuation();
+        internalContinuation.out = out;
+        Continuation.yield(continuationScope);
+        if (internalContinuation.closing) {
+            throw new GeneratorClosedException();
+        }
+        I in = internalContinuation.in;
+        internalContinuation.in = null;
+        return in;
+    }
+
+    private static <I, O> InternalContinuation<I, O> getCurrentContinuation() {
+        if (Continuation.getCurrentContinuation(continuationScope) instanceof InternalContinuation<?, ?> internal) {
+            @SuppressWarnings("unchecked")
+            InternalContinuation<I, O> internalContinuation = (InternalContinuation<I, O>) internal;
+            return internalContinuation;
+        }
+        throw new IllegalStateException("Unexpected Continuation");
+    }
+
+    /**
+     * Passes <code>in</code> into the target and runs it until it yields or returns. Exceptions of the target are
+     * thrown by this method, after which the coroutine is done.
+     *
+     * @return the value the target yielded or returned.
+     * @throws IllegalStateException if the coroutine is done or closed.
+     */
+    public O resume(I in) {
+        InternalContinuation<I, O> c = continuation;
+        if (closed) {
+            throw new IllegalStateException("Coroutine is closed");
+        }
+        if (c.isDone()) {
+            throw new IllegalStateException("Coroutine is done");
+        }
+        started = true;
+        c.in = in;
+        c.run();
+        O out = c.out;
+        c.out = null;
+        return out;
+    }
+
+    /**
+     * @return <code>true</code> if the target returned or failed, or the coroutine was closed.
+     */
+    public boolean isDone() {
+        return closed || continuation.isDone();
+    }
+
+    /**
+     * Closes the coroutine. If the target is suspended in {@link #yield(Object)}, it is resumed and the yield throws
+     * {@link GeneratorClosedException}, so the finally blocks of the target have run when this method returns.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        InternalContinuation<I, O> c = continuation;
+        c.in = null;
+        c.out = null;
+        if (started && !c.isDone()) {
+            c.closing = true;
+            c.run();
+        }
+    }
+
+    private static class InternalContinuation<I, O> extends Continuation {
+        private I in;
+        private O out;
+        private boolean closing;
+
+        InternalContinuation(Function<? super I, ? extends O> target) {
+            super(continuationScope, () -> {
+                InternalContinuation<I, O> c = Coroutine.getCurrentContinuation();
+                I first = c.in;
+                c.in = null;
+                try {
+                    c.out = target.apply(first);
+                } catch (GeneratorClosedException e) {
+                    // closed while suspended
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.ContinuationScope;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A {@link RunnableGenerator} specialised for {@code double} values. The yielded value is kept in a primitive field of
+ * the continuation, so producing and consuming a value does not allocate.
+ */
+public class DoubleGenerator extends PrimitiveGenerator<DoubleGenerator.InternalContinuation>
+        implements DoubleSupplier {
+
+    private static final ContinuationScope continuationScope = new ContinuationScope("DoubleGenerator");
+
+    public DoubleGenerator(Runnable target) {
+        super(new InternalContinuation(target));
+    }
+
+    public static void yieldDouble(double value) {
+        InternalContinuation internalContinuation =
+                getCurrentContinuation(continuationScope, InternalContinuation.class);
+        internalContinuation.next = value;
+        suspend(continuationScope, internalContinuation);
+    }
+
+    /**
+     * Runs the target until it yields the next value. The returned value is only meaningful if {@link #isDone()}
+     * returns <code>false</code> afterwards.
+     */
+    @Override
+    public double getAsDouble() {
+        resume();
+        return continuation.next;
+    }
+
+    static final class InternalContinuation extends PrimitiveContinuation {
+        private double next;
+
+        InternalContinuation(Runnable target) {
+            super(continuationScope, target);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package loom.generators.sk4is3r;
+
+/**
+ * Thrown by yield into the target of a generator which was closed while the target was suspended. It unwinds the
+ * target, running its finally blocks, and is swallowed by the generator. Targets which catch it should rethrow it.
+ */
+public final class GeneratorClosedException extends RuntimeException {
+
+    GeneratorClosedException() {
+        super("generator-closed", null, false, false);
+    }
+}
@@ -0,0 +1,87 @@
+package loom.generators.sk4is3r;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A striped pool of {@link RunnableGenerator}s whose continuations run one target after another. A generator is
+ * acquired for a target and can be released once the target has finished; the next {@link #acquire(Runnable)}
+ * reuses its continuation, stack and wrapper instead of allocating new ones. A generator must not be used after it
+ * was released.
+ * <p>
+ * Since a pooled continuation never terminates, handing back control at the end of a target costs one additional
+ * continuation switch. Pooling therefore trades allocation and GC pressure for latency; measure with
+ * {@code GeneratorPoolBenchmark}.
+ */
+public final class GeneratorPool {
+    /**
+     * Maximal number of slots inspected by {@link #acquire(Runnable)} and {@link #release(RunnableGenerator)}.
+     */
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<RunnableGenerator<?>> slots;
+    private final int mask;
+
+    /**
+     * @param capacity maximal number of idle generators kept by the pool, rounded up to a power of two.
+     */
+    public GeneratorPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    }
+
+    /**
+     * Returns an idle generator running the given target, or a new pooled generator if no idle one is available.
+     */
+    public <T> RunnableGenerator<T> acquire(Runnable target) {
+        Objects.requireNonNull(target);
+        int stripe = stripe();
+        for (int i = 0; i < PROBES && i <= mask; i++) {
+            int index = (stripe + i) & mask;
+            if (slots.get(index) != null) {
+                RunnableGenerator<?> idle = slots.getAndSet(index, null);
+                if (idle != null) {
+                    @SuppressWarnings("unchecked")
+                    RunnableGenerator<T> generator = (RunnableGenerator<T>) idle;
+                    generator.recycle(target);
+                    return generator;
+                }
+            }
+        }
+        RunnableGenerator<T> generator = new RunnableGenerator<>(new RunnableGenerator.Recycler());
+        generator.recycle(target);
+        return generator;
+    }
+
+    /**
+     * Returns the generator to the pool. Only generators acquired from a pool whose target has finished are
+     * accepted, all others are left to the garbage collector.
+     *
+     * @return <code>true</code> if the generator was pooled.
+     */
+    public boolean release(RunnableGenerator<?> generator) {
+        if (!generator.isRecyclable()) {
+            return false;
+        }
+        int stripe = stripe();
+        for (int i = 0; i < PROBES && i <= mask; i++) {
+            int index = (stripe + i) & mask;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, generator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
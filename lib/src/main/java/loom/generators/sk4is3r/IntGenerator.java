@@ -0,0 +1,43 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.ContinuationScope;
+
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link RunnableGenerator} specialised for {@code int} values. The yielded value is kept in a primitive field of
+ * the continuation, so producing and consuming a value does not allocate.
+ */
+public class IntGenerator extends PrimitiveGenerator<IntGenerator.InternalContinuation> implements IntSupplier {
+
+    private static final ContinuationScope continuationScope = new ContinuationScope("IntGenerator");
+
+    public IntGenerator(Runnable target) {
+        super(new InternalContinuation(target));
+    }
+
+    public static void yieldInt(int value) {
+        InternalContinuation internalContinuation =
+                getCurrentContinuation(continuationScope, InternalContinuation.class);
+        internalContinuation.next = value;
+        suspend(continuationScope, internalContinuation);
+    }
+
+    /**
+     * Runs the target until it yields the next value. The returned value is only meaningful if {@link #isDone()}
+     * returns <code>false</code> afterwards.
+     */
+    @Override
+    public int getAsInt() {
+        resume();
+        return continuation.next;
+    }
+
+    static final class InternalContinuation extends PrimitiveContinuation {
+        private int next;
+
+        InternalContinuation(Runnable target) {
+            super(continuationScope, target);
+        }
+    }
+}
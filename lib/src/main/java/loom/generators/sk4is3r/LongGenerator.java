@@ -0,0 +1,43 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.ContinuationScope;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link RunnableGenerator} specialised for {@code long} values. The yielded value is kept in a primitive field of
+ * the continuation, so producing and consuming a value does not allocate.
+ */
+public class LongGenerator extends PrimitiveGenerator<LongGenerator.InternalContinuation> implements LongSupplier {
+
+    private static final ContinuationScope continuationScope = new ContinuationScope("LongGenerator");
+
+    public LongGenerator(Runnable target) {
+        super(new InternalContinuation(target));
+    }
+
+    public static void yieldLong(long value) {
+        InternalContinuation internalContinuation =
+                getCurrentContinuation(continuationScope, InternalContinuation.class);
+        internalContinuation.next = value;
+        suspend(continuationScope, internalContinuation);
+    }
+
+    /**
+     * Runs the target until it yields the next value. The returned value is only meaningful if {@link #isDone()}
+     * returns <code>false</code> afterwards.
+     */
+    @Override
+    public long getAsLong() {
+        resume();
+        return continuation.next;
+    }
+
+    static final class InternalContinuation extends PrimitiveContinuation {
+        private long next;
+
+        InternalContinuation(Runnable target) {
+            super(continuationScope, target);
+        }
+    }
+}
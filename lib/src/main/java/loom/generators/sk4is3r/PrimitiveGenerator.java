@@ -0,0 +1,78 @@
+package loom.generators.sk4is3r;
+
+import jdk.internal.vm.Continuation;
+import jdk.internal.vm.ContinuationScope;
+
+/**
+ * Runs and closes the continuation of {@link IntGenerator}, {@link LongGenerator} and {@link DoubleGenerator}, which
+ * only add the primitive field their values are handed over in.
+ */
+abstract class PrimitiveGenerator<C extends PrimitiveGenerator.PrimitiveContinuation> {
+
+    final C continuation;
+    private boolean started;
+    private boolean closed;
+
+    PrimitiveGenerator(C continuation) {
+        this.continuation = continuation;
+    }
+
+    static <C extends PrimitiveContinuation> C getCurrentContinuation(ContinuationScope scope, Class<C> type) {
+        Continuation current = Continuation.getCurrentContinuation(scope);
+        if (type.isInstance(current)) {
+            return type.cast(current);
+        }
+        throw new IllegalStateException("Unexpected Continuation");
+    }
+
+    static void suspend(ContinuationScope scope, PrimitiveContinuation continuation) {
+        Continuation.yield(scope);
+        if (continuation.closing) {
+            throw new GeneratorClosedException();
+        }
+    }
+
+    /**
+     * Runs the target until it yields the next value.
+     */
+    final void resume() {
+        if (closed) {
+            throw new IllegalStateException("Generator is closed");
+        }
+        started = true;
+        continuation.run();
+    }
+
+    public boolean isDone() {
+        return closed || continuation.isDone();
+    }
+
+    /**
+     * Closes the generator. If the target is suspended in a yield, it is resumed and the yield throws
+     * {@link GeneratorClosedException}, so the finally blocks of the target have run when this method returns.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (started && !continuation.isDone()) {
+            continuation.closing = true;
+            continuation.run();
+        }
+    }
+
+    abstract static class PrimitiveContinuation extends Continuation {
+        boolean closing;
+
+        PrimitiveContinuation(ContinuationScope scope, Runnable target) {
+            super(scope, () -> {
+                try {
+                    target.run();
+                } catch (GeneratorClosedException e) {
+                    // closed while suspended
+                }
+            });
+        }
+    }
+}
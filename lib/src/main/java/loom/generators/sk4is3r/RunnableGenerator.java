@@ -2,26 +2,129 @@ package loom.generators.sk4is3r;
 
 import jdk.internal.vm.Continuation;
 import jdk.internal.vm.ContinuationScope;
+import loom.generators.jfr.GeneratorResumeEvent;
+import loom.generators.jfr.GeneratorTracker;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class RunnableGenerator<T> implements Supplier<T> {
 
     private static final ContinuationScope continuationScope = new ContinuationScope("RunnableGenerator");
+    private static final boolean EVENTS = GeneratorTracker.isEnabled("sk4is3r");
+    private static final LongAdder PINNED_YIELDS = new LongAdder();
 
     private final InternalContinuation<T> continuation;
+    /**
+     * Runs the targets of a pooled generator, <code>null</code> if the generator is not pooled.
+     */
+    private final Recycler recycler;
+    private boolean started;
+    private boolean closed;
 
     public RunnableGenerator(Runnable target) {
-        continuation = new InternalContinuation<>(target);
+        continuation = new InternalContinuation<>(target, null);
+        recycler = null;
+        continuation.tracker = EVENTS ? GeneratorTracker.track("sk4is3r", continuation) : null;
+    }
+
+    /**
+     * Creates a buffered generator. Values passed to {@link #yield(Object)} are collected in a buffer of the given
+     * size and the continuation only yields once the buffer is full, {@link #flush()} is called or the target
+     * finishes. {@link #get()} drains the buffer without switching continuations.
+     *
+     * @param bufferSize the number of values handed over per continuation switch.
+     */
+    public RunnableGenerator(Runnable target, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        continuation = new InternalContinuation<>(target, new Object[bufferSize]);
+        recycler = null;
+        continuation.tracker = EVENTS ? GeneratorTracker.track("sk4is3r", continuation) : null;
+    }
+
+    /**
+     * Creates a generator for {@link GeneratorPool} whose continuation survives its target, see {@link Recycler}.
+     */
+    RunnableGenerator(Recycler recycler) {
+        continuation = new InternalContinuation<>(recycler, null);
+        this.recycler = recycler;
     }
 
     public static <T> void yield(T value) {
         InternalContinuation<T> internalContinuation = getCurrentContinuation();
+        Object[] buffer = internalContinuation.buffer;
+        if (buffer != null) {
+            buffer[internalContinuation.size++] = value;
+            if (internalContinuation.size == buffer.length) {
+                suspend(internalContinuation);
+            }
+            return;
+        }
         internalContinuation.next = value;
-        Continuation.yield(continuationScope);
+        suspend(internalContinuation);
         internalContinuation.next = null;
     }
 
+    private static void suspend(InternalContinuation<?> internalContinuation) {
+        if (internalContinuation.tracker != null) {
+            internalContinuation.tracker.suspended();
+        }
+        if (!Continuation.yield(continuationScope)) {
+            throw pinned(internalContinuation);
+        }
+        if (internalContinuation.closing) {
+            throw new GeneratorClosedException();
+        }
+    }
+
+    /**
+     * The target could not suspend, because it holds a monitor or has a native frame on its stack. Its frames are on
+     * the stack of the consumer, so it can neither go on without handing over the value nor move to another thread,
+     * and the yield fails.
+     */
+    private static IllegalStateException pinned(InternalContinuation<?> c) {
+        PINNED_YIELDS.increment();
+        String reason = c.pinnedReason.name();
+        if (c.tracker != null) {
+            c.tracker.pinned(reason);
+        }
+        if (c.pinnedListener != null) {
+            c.pinnedListener.accept(reason);
+        }
+        return new IllegalStateException("Cannot yield while the target is pinned: " + reason);
+    }
+
+    /**
+     * Number of yields of all generators which failed because they could not suspend the target, as it held a
+     * monitor or had a native frame on its stack.
+     */
+    public static long pinnedYields() {
+        return PINNED_YIELDS.sum();
+    }
+
+    /**
+     * Sets a listener which is called by the target with the reason, e.g. <code>MONITOR</code>, whenever one of its
+     * yields could not suspend it, right before the yield throws {@link IllegalStateException}.
+     */
+    public void setPinnedListener(Consumer<String> listener) {
+        continuation.pinnedListener = listener;
+    }
+
+    /**
+     * Hands all buffered values over to the consumer. Does nothing if the current generator is not buffered or the
+     * buffer is empty.
+     */
+    public static void flush() {
+        InternalContinuation<?> internalContinuation = getCurrentContinuation();
+        if (internalContinuation.buffer != null && internalContinuation.size > 0) {
+            suspend(internalContinuation);
+        }
+    }
+
     private static <T> InternalContinuation<T> getCurrentContinuation() {
         if (Continuation.getCurrentContinuation(continuationScope) instanceof InternalContinuation<?> internal) {
             @SuppressWarnings("unchecked")
@@ -33,19 +136,226 @@ public class RunnableGenerator<T> implements Supplier<T> {
 
     @Override
     public T get() {
-        continuation.run();
+        InternalContinuation<T> c = continuation;
+        if (closed) {
+            return null;
+        }
+        started = true;
+        if (recycler != null) {
+            return getRecycled();
+        }
+        if (c.buffer == null) {
+            if (c.isDone()) {
+                return null;
+            }
+            resume();
+            return c.next;
+        }
+        if (c.position == c.size) {
+            c.position = 0;
+            c.size = 0;
+            if (c.failure != null) {
+                RuntimeException failure = c.failure;
+                c.failure = null;
+                throw failure;
+            }
+            if (c.isDone()) {
+                return null;
+            }
+            try {
+                resume();
+            } catch (RuntimeException e) {
+                if (c.size == 0) {
+                    throw e;
+                }
+                // hand over the values yielded before the failure first
+                c.failure = e;
+            }
+            if (c.size == 0) {
+                return null;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        T item = (T) c.buffer[c.position];
+        c.buffer[c.position++] = null;
+        return item;
+    }
+
+    private T getRecycled() {
+        if (recycler.targetDone) {
+            return null;
+        }
+        resume();
+        if (recycler.failure != null) {
+            RuntimeException failure = recycler.failure;
+            recycler.failure = null;
+            throw failure;
+        }
         return continuation.next;
     }
 
+    /**
+     * Runs the target until it suspends and reports the resume to the tracker, if any.
+     */
+    private void resume() {
+        InternalContinuation<T> c = continuation;
+        GeneratorTracker tracker = c.tracker;
+        if (tracker == null) {
+            c.run();
+            return;
+        }
+        GeneratorResumeEvent event = tracker.beginResume();
+        try {
+            c.run();
+        } catch (RuntimeException e) {
+            tracker.endResume(event, c.size, true);
+            tracker.ended(GeneratorTracker.Outcome.FAILED);
+            throw e;
+        }
+        boolean done = recycler != null ? recycler.targetDone : c.isDone();
+        tracker.endResume(event, c.buffer != null ? c.size : done ? 0 : 1, done);
+        if (done) {
+            tracker.ended(recycler != null && recycler.failure != null
+                    ? GeneratorTracker.Outcome.FAILED
+                    : GeneratorTracker.Outcome.COMPLETED);
+        }
+    }
+
     public boolean isDone() {
-        return continuation.isDone();
+        if (closed) {
+            return true;
+        }
+        if (recycler != null) {
+            return recycler.targetDone || continuation.isDone();
+        }
+        return continuation.isDone() && continuation.position == continuation.size && continuation.failure == null;
+    }
+
+    /**
+     * @return <code>true</code> if this is a pooled generator whose target has finished, so it can run another one.
+     */
+    boolean isRecyclable() {
+        return recycler != null && recycler.targetDone && !continuation.isDone();
+    }
+
+    void recycle(Runnable target) {
+        recycler.target = target;
+        recycler.targetDone = false;
+        continuation.closing = false;
+        continuation.tracker = EVENTS ? GeneratorTracker.track("sk4is3r", continuation) : null;
+        started = false;
+        closed = false;
+    }
+
+    /**
+     * Closes the generator. If the target is suspended in {@link #yield(Object)}, it is resumed and the yield throws
+     * {@link GeneratorClosedException}, so the finally blocks of the target have run when this method returns. The
+     * target of a generator which was not started is never run. Afterwards {@link #get()} returns <code>null</code>.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        InternalContinuation<T> c = continuation;
+        if (c.tracker != null) {
+            c.tracker.ended(GeneratorTracker.Outcome.CLOSED);
+        }
+        if (c.buffer != null) {
+            Arrays.fill(c.buffer, null);
+            c.position = 0;
+            c.size = 0;
+        }
+        c.failure = null;
+        if (recycler != null) {
+            if (!started) {
+                recycler.target = null;
+                recycler.targetDone = true;
+                return;
+            }
+            if (recycler.targetDone || c.isDone()) {
+                return;
+            }
+        } else if (!started || c.isDone()) {
+            return;
+        }
+        c.closing = true;
+        c.run();
+        if (recycler != null && recycler.failure != null) {
+            RuntimeException failure = recycler.failure;
+            recycler.failure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Body of a pooled continuation. Runs one target after another and yields in between, so the continuation and
+     * its stack are reused instead of being allocated for every target.
+     */
+    static final class Recycler implements Runnable {
+        private Runnable target;
+        private boolean targetDone = true;
+        private RuntimeException failure;
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    target.run();
+                } catch (GeneratorClosedException e) {
+                    // closed while suspended
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                target = null;
+                targetDone = true;
+                Continuation.yield(continuationScope);
+            }
+        }
     }
 
     private static class InternalContinuation<T> extends Continuation {
         private T next;
+        /**
+         * Values yielded since the last switch to the consumer, <code>null</code> if the generator is not buffered.
+         */
+        private final Object[] buffer;
+        private int size;
+        /**
+         * Index of the next buffered value returned by {@link RunnableGenerator#get()}.
+         */
+        private int position;
+        private RuntimeException failure;
+        /**
+         * Set by {@link RunnableGenerator#close()} before resuming the target for the last time.
+         */
+        private boolean closing;
+        /**
+         * Emits the JFR events of the current target, <code>null</code> if they are not enabled. Tracks the
+         * abandonment of the continuation, which becomes unreachable together with its generator.
+         */
+        private GeneratorTracker tracker;
+        private Pinned pinnedReason;
+        private Consumer<String> pinnedListener;
+
+        InternalContinuation(Runnable target, Object[] buffer) {
+            super(continuationScope, () -> {
+                try {
+                    target.run();
+                } catch (GeneratorClosedException e) {
+                    // closed while suspended
+                }
+            });
+            this.buffer = buffer;
+        }
 
-        InternalContinuation(Runnable target) {
-            super(continuationScope, target);
+        /**
+         * Records the reason, {@link Continuation#yield(ContinuationScope)} then returns <code>false</code> and
+         * {@link RunnableGenerator#suspend} fails with it.
+         */
+        @Override
+        protected void onPinned(Pinned reason) {
+            pinnedReason = reason;
         }
     }
 }
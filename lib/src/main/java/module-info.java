@@ -2,8 +2,10 @@ module loom.generators {
     requires jtrim.collections;
     requires jtrim.utils;
     requires jtrim.concurrent;
+    requires jdk.jfr;
 
     exports loom.generators;
+    exports loom.generators.jfr;
     exports loom.generators.kelemen;
     exports loom.generators.mvysny;
     exports loom.generators.robaho;
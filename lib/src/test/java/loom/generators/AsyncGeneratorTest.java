@@ -0,0 +1,294 @@
+package loom.generators;
+
+import loom.generators.sk4is3r.AsyncGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AsyncGeneratorTest {
+
+    /**
+     * In-memory stand-in for a paged remote service. Pages are served by a background thread, or held back until
+     * {@link #release()} if the service is manual.
+     */
+    private static final class PageService {
+        private final int pages;
+        private final int pageSize;
+        private final ExecutorService executor;
+        private final Queue<Runnable> held = new ArrayDeque<>();
+        private final AtomicInteger requests = new AtomicInteger();
+
+        PageService(int pages, int pageSize, boolean manual) {
+            this.pages = pages;
+            this.pageSize = pageSize;
+            this.executor = manual ? null : Executors.newSingleThreadExecutor();
+        }
+
+        CompletableFuture<List<Integer>> fetch(int page) {
+            requests.incrementAndGet();
+            CompletableFuture<List<Integer>> result = new CompletableFuture<>();
+            Runnable serve = () -> {
+                if (page == pages) {
+                    result.complete(List.of());
+                } else if (page > pages) {
+                    result.completeExceptionally(new IllegalArgumentException("no page " + page));
+                } else {
+                    List<Integer> values = new ArrayList<>();
+                    for (int i = 0; i < pageSize; i++) {
+                        values.add(page * pageSize + i);
+                    }
+                    result.complete(values);
+                }
+            };
+            if (executor == null) {
+                synchronized (held) {
+                    held.add(serve);
+                }
+            } else {
+                executor.execute(serve);
+            }
+            return result;
+        }
+
+        /**
+         * Serves the held back requests on the calling thread.
+         */
+        int release() {
+            int released = 0;
+            while (true) {
+                Runnable serve;
+                synchronized (held) {
+                    serve = held.poll();
+                }
+                if (serve == null) {
+                    return released;
+                }
+                serve.run();
+                released++;
+            }
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private final List<PageService> services = new ArrayList<>();
+
+    private PageService service(int pages, int pageSize, boolean manual) {
+        PageService service = new PageService(pages, pageSize, manual);
+        services.add(service);
+        return service;
+    }
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(PageService::shutdown);
+    }
+
+    private static AsyncGeneratorService<Integer> allValues(PageService service) {
+        return Generators.newAsyncGenerator(y -> {
+            for (int page = 0; ; page++) {
+                List<Integer> values = y.await(service.fetch(page));
+                if (values.isEmpty()) {
+                    return;
+                }
+                values.forEach(y::yield);
+            }
+        });
+    }
+
+    private static List<Integer> collect(AsyncIterator<Integer> it) {
+        List<Integer> values = new ArrayList<>();
+        for (Integer value; (value = it.nextAsync().toCompletableFuture().join()) != null; ) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Test
+    void yieldsValuesOfAllPages() {
+        PageService service = service(5, 3, false);
+
+        assertThat(collect(allValues(service).asyncIterator()))
+                .containsExactlyElementsOf(IntStream.range(0, 15).boxed().toList());
+        assertThat(service.requests.get()).isEqualTo(6);
+    }
+
+    @Test
+    void producerIsResumedByCompletingThread() {
+        PageService service = service(2, 2, true);
+        AsyncIterator<Integer> it = allValues(service).asyncIterator();
+
+        CompletableFuture<Integer> first = it.nextAsync().toCompletableFuture();
+        // the producer awaits the first page, nothing is blocked
+        assertThat(first).isNotDone();
+        assertThat(service.release()).isEqualTo(1);
+        assertThat(first).isCompletedWithValue(0);
+
+        // values of a fetched page are yielded synchronously
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(1);
+
+        CompletableFuture<Integer> third = it.nextAsync().toCompletableFuture();
+        assertThat(third).isNotDone();
+        assertThatThrownBy(it::nextAsync).isInstanceOf(IllegalStateException.class);
+        service.release();
+        assertThat(third).isCompletedWithValue(2);
+
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(3);
+        CompletableFuture<Integer> end = it.nextAsync().toCompletableFuture();
+        service.release();
+        assertThat(end).isCompletedWithValue(null);
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(null);
+    }
+
+    @Test
+    void failedStageIsThrownByAwait() {
+        PageService service = service(1, 2, false);
+        List<Object> seen = new ArrayList<>();
+        AsyncIterator<Integer> it = Generators.<Integer>newAsyncGenerator(y -> {
+            try {
+                y.await(service.fetch(7));
+            } catch (CompletionException e) {
+                seen.add(e.getCause());
+                throw e;
+            }
+        }).asyncIterator();
+
+        assertThatThrownBy(() -> it.nextAsync().toCompletableFuture().join())
+                .isInstanceOf(CompletionException.class)
+                .rootCause()
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(seen).singleElement().isInstanceOf(IllegalArgumentException.class);
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(null);
+    }
+
+    @Test
+    void closeUnwindsProducer() {
+        PageService service = service(3, 2, true);
+        AtomicInteger finished = new AtomicInteger();
+        AsyncGeneratorService<Integer> g = Generators.newAsyncGenerator(y -> {
+            try {
+                for (int page = 0; ; page++) {
+                    y.await(service.fetch(page)).forEach(y::yield);
+                }
+            } finally {
+                finished.incrementAndGet();
+            }
+        });
+
+        // suspended in yield
+        AsyncIterator<Integer> suspended = g.asyncIterator();
+        CompletableFuture<Integer> first = suspended.nextAsync().toCompletableFuture();
+        service.release();
+        assertThat(first).isCompletedWithValue(0);
+        suspended.close();
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(suspended.nextAsync().toCompletableFuture()).isCompletedWithValue(null);
+
+        // suspended in await, unwound once the stage completes
+        AsyncIterator<Integer> awaiting = g.asyncIterator();
+        CompletableFuture<Integer> pending = awaiting.nextAsync().toCompletableFuture();
+        awaiting.close();
+        assertThat(finished.get()).isEqualTo(1);
+        service.release();
+        assertThat(pending).isCompletedWithValue(null);
+        assertThat(finished.get()).isEqualTo(2);
+
+        // never started
+        AsyncIterator<Integer> unstarted = g.asyncIterator();
+        unstarted.close();
+        assertThat(unstarted.nextAsync().toCompletableFuture()).isCompletedWithValue(null);
+        assertThat(finished.get()).isEqualTo(2);
+    }
+
+    /**
+     * A stage which is not a {@link CompletableFuture}, delegating to <code>future</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> CompletionStage<V> foreignStage(CompletableFuture<V> future) {
+        return (CompletionStage<V>) Proxy.newProxyInstance(CompletionStage.class.getClassLoader(),
+                new Class<?>[]{CompletionStage.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(future, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void awaitsMinimalStages() {
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        AsyncIterator<Integer> it = Generators.<Integer>newAsyncGenerator(y -> {
+            y.yield(y.await(CompletableFuture.completedStage(7)));
+            y.yield(y.await(pending.minimalCompletionStage()));
+            y.await(CompletableFuture.failedStage(new IllegalArgumentException()));
+        }).asyncIterator();
+
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(7);
+        CompletableFuture<Integer> second = it.nextAsync().toCompletableFuture();
+        assertThat(second).isNotDone();
+        pending.complete(8);
+        assertThat(second).isCompletedWithValue(8);
+        assertThatThrownBy(() -> it.nextAsync().toCompletableFuture().join())
+                .rootCause()
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void awaitsStagesWhichAreNoCompletableFutures() {
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        AsyncIterator<Integer> it = Generators.<Integer>newAsyncGenerator(y -> {
+            y.yield(y.await(foreignStage(CompletableFuture.completedFuture(7))));
+            y.yield(y.await(foreignStage(pending)));
+        }).asyncIterator();
+
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(7);
+        CompletableFuture<Integer> second = it.nextAsync().toCompletableFuture();
+        assertThat(second).isNotDone();
+        pending.complete(8);
+        assertThat(second).isCompletedWithValue(8);
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(null);
+    }
+
+    @Test
+    void awaitingManyCompletedStagesDoesNotGrowTheStack() {
+        int awaits = 100_000;
+        AsyncIterator<Integer> it = Generators.<Integer>newAsyncGenerator(y -> {
+            int sum = 0;
+            for (int i = 0; i < awaits; i++) {
+                sum += y.await(i % 2 == 0
+                        ? CompletableFuture.completedStage(1)
+                        : foreignStage(CompletableFuture.completedFuture(1)));
+            }
+            y.yield(sum);
+        }).asyncIterator();
+
+        assertThat(it.nextAsync().toCompletableFuture()).isCompletedWithValue(awaits);
+    }
+
+    @Test
+    void awaitOutsideOfAsyncGeneratorFails() {
+        assertThatThrownBy(() -> AsyncGenerator.await(CompletableFuture.completedFuture(1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BroadcastGeneratorTest {
+
+    private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+    private final AtomicInteger produced = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    private GeneratorService<Integer> range(int count) {
+        return Generators.newRunnableGenerator(y -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    produced.incrementAndGet();
+                    y.yield(i);
+                }
+            } finally {
+                finished.incrementAndGet();
+            }
+        });
+    }
+
+    private static List<Integer> take(Iterator<Integer> it, int count) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < count && it.hasNext(); i++) {
+            values.add(it.next());
+        }
+        return values;
+    }
+
+    @Test
+    void producerRunsOnceForAllConsumers() {
+        GeneratorService<Integer> broadcast = Generators.broadcast(range(10), 4);
+        Iterator<Integer> a = broadcast.iterator();
+        Iterator<Integer> b = broadcast.iterator();
+        Iterator<Integer> c = broadcast.iterator();
+
+        assertThat(take(a, 5)).containsExactly(0, 1, 2, 3, 4);
+        assertThat(take(b, 2)).containsExactly(0, 1);
+        // the producer only ran as far as the fastest consumer
+        assertThat(produced.get()).isEqualTo(5);
+
+        assertThat(take(b, 100)).containsExactly(2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(take(a, 100)).containsExactly(5, 6, 7, 8, 9);
+        assertThat(take(c, 100)).containsExactlyElementsOf(IntStream.range(0, 10).boxed().toList());
+        assertThat(produced.get()).isEqualTo(10);
+        assertThat(finished.get()).isEqualTo(1);
+    }
+
+    @Test
+    void laterCursorStartsAtNextElement() {
+        GeneratorService<Integer> broadcast = Generators.broadcast(range(6), 2);
+        Iterator<Integer> first = broadcast.iterator();
+        assertThat(take(first, 3)).containsExactly(0, 1, 2);
+
+        Iterator<Integer> late = broadcast.iterator();
+        assertThat(take(late, 100)).containsExactly(3, 4, 5);
+        assertThat(take(first, 100)).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void segmentsAreReleasedOnceTheSlowestCursorPassedThem() {
+        List<WeakReference<Object>> refs = new ArrayList<>();
+        GeneratorService<Object> broadcast = Generators.broadcast(Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < 64; i++) {
+                Object element = new Object();
+                refs.add(new WeakReference<>(element));
+                y.yield(element);
+            }
+        }), 4);
+        Iterator<Object> fast = broadcast.iterator();
+        Iterator<Object> slow = broadcast.iterator();
+
+        for (int i = 0; i < 32; i++) {
+            fast.next();
+        }
+        slow.next();
+        System.gc();
+        // the segment of the slow cursor and the ones behind it are retained
+        assertThat(refs.subList(0, 32)).allMatch(ref -> ref.get() != null);
+
+        for (int i = 1; i < 32; i++) {
+            slow.next();
+        }
+        awaitGc(() -> refs.subList(0, 28).stream().allMatch(ref -> ref.get() == null));
+        assertThat(refs.subList(0, 28)).allMatch(ref -> ref.get() == null);
+    }
+
+    private static void awaitGc(BooleanSupplier condition) {
+        for (int i = 0; i < 10 && !condition.getAsBoolean(); i++) {
+            System.gc();
+        }
+    }
+
+    @Test
+    void failureIsThrownToEveryConsumer() {
+        GeneratorService<Integer> broadcast = Generators.broadcast(Generators.newRunnableGenerator(y -> {
+            y.yield(1);
+            throw FAILURE;
+        }));
+        Iterator<Integer> a = broadcast.iterator();
+        Iterator<Integer> b = broadcast.iterator();
+
+        assertThat(a.next()).isEqualTo(1);
+        assertThatThrownBy(a::hasNext).isSameAs(FAILURE);
+        assertThat(a.hasNext()).isFalse();
+        assertThat(b.next()).isEqualTo(1);
+        assertThatThrownBy(b::hasNext).isSameAs(FAILURE);
+    }
+
+    @Test
+    void closingTheLastCursorUnwindsProducer() {
+        GeneratorService<Integer> broadcast = Generators.broadcast(range(100));
+        GeneratorIterator<Integer> a = broadcast.closeableIterator();
+        GeneratorIterator<Integer> b = broadcast.closeableIterator();
+        take(a, 3);
+
+        a.close();
+        assertThat(a.hasNext()).isFalse();
+        assertThat(finished.get()).isZero();
+        assertThat(take(b, 2)).containsExactly(0, 1);
+        b.close();
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(broadcast.iterator().hasNext()).isFalse();
+    }
+
+    @Test
+    void consumersOnDifferentThreads() throws InterruptedException, ExecutionException {
+        int count = 100_000;
+        GeneratorService<Integer> broadcast = Generators.broadcast(range(count), 64);
+        List<Iterator<Integer>> cursors = IntStream.range(0, 4).mapToObj(i -> broadcast.iterator()).toList();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Long>> sums = new ArrayList<>();
+            for (Iterator<Integer> cursor : cursors) {
+                sums.add(executor.submit(() -> {
+                    long sum = 0;
+                    int expected = 0;
+                    while (cursor.hasNext()) {
+                        int value = cursor.next();
+                        assertThat(value).isEqualTo(expected++);
+                        sum += value;
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<Long> sum : sums) {
+                assertThat(sum.get()).isEqualTo((long) count * (count - 1) / 2);
+            }
+        }
+        assertThat(produced.get()).isEqualTo(count);
+    }
+
+    @Test
+    void rejectsNonPositiveSegmentSize() {
+        assertThatThrownBy(() -> Generators.broadcast(range(1), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BufferedGeneratorTest {
+
+    @Test
+    void yieldsAllValuesInOrder() {
+        GeneratorService<Integer> g = Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < 10; i++) {
+                y.yield(i);
+            }
+        }, 4);
+
+        assertThat(g).containsExactlyElementsOf(IntStream.range(0, 10).boxed().toList());
+    }
+
+    @Test
+    void producerRunsAheadByOneBuffer() {
+        List<Integer> produced = new ArrayList<>();
+        Iterator<Integer> it = Generators.<Integer>newRunnableGenerator(y -> {
+            for (int i = 0; i < 10; i++) {
+                produced.add(i);
+                y.yield(i);
+            }
+        }, 4).iterator();
+
+        assertThat(it.next()).isEqualTo(0);
+        assertThat(produced).hasSize(4);
+        it.next();
+        it.next();
+        it.next();
+        assertThat(produced).hasSize(4);
+        assertThat(it.next()).isEqualTo(4);
+        assertThat(produced).hasSize(8);
+    }
+
+    @Test
+    void flushHandsOverPartialBuffer() {
+        List<Integer> produced = new ArrayList<>();
+        Iterator<Integer> it = Generators.<Integer>newRunnableGenerator(y -> {
+            for (int i = 0; i < 10; i++) {
+                produced.add(i);
+                y.yield(i);
+                y.flush();
+            }
+        }, 4).iterator();
+
+        assertThat(it.next()).isEqualTo(0);
+        assertThat(produced).hasSize(1);
+        assertThat(it.next()).isEqualTo(1);
+        assertThat(produced).hasSize(2);
+    }
+
+    @Test
+    void failureIsThrownAfterBufferedValues() {
+        Iterator<Integer> it = Generators.<Integer>newRunnableGenerator(y -> {
+            y.yield(1);
+            throw new IllegalStateException("boom");
+        }, 4).iterator();
+
+        assertThat(it.next()).isEqualTo(1);
+        assertThatThrownBy(it::next).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    @Test
+    void rejectsInvalidBufferSize() {
+        assertThatThrownBy(() -> Generators.newRunnableGenerator(y -> {
+        }, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
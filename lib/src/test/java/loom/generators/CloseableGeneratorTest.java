@@ -0,0 +1,220 @@
+package loom.generators;
+
+import loom.generators.kelemen.GeneratorFactories;
+import loom.generators.mvysny.ContinuationInvoker;
+import loom.generators.robaho.Generator;
+import loom.generators.sk4is3r.GeneratorPool;
+import loom.generators.sk4is3r.RunnableGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CloseableGeneratorTest {
+
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    private void produce(Generators.Yieldable<Integer> y) {
+        started.incrementAndGet();
+        try {
+            for (int i = 0; ; i++) {
+                y.yield(i);
+            }
+        } finally {
+            finished.incrementAndGet();
+        }
+    }
+
+    private void produceUntilStopped(Generator.Callback<Integer> y) {
+        started.incrementAndGet();
+        try {
+            for (int i = 0; y.yield(i); i++) {
+                // produce until closed
+            }
+        } finally {
+            finished.incrementAndGet();
+        }
+    }
+
+    private List<GeneratorService<Integer>> generators() {
+        return List.of(
+                Generators.newRunnableGenerator(this::produce),
+                Generators.newRunnableGenerator(this::produce, 4),
+                Generators.newPooledRunnableGenerator(this::produce),
+                Generators.newMvySnyGenerator(y -> produce(y::yield)),
+                Generators.newMvySnyGenerator(y -> produce(y::yield), ContinuationInvoker.Mode.DIRECT),
+                Generators.newRobahoGenerator(this::produceUntilStopped),
+                Generators.newRobahoGenerator(this::produceUntilStopped, Generator.Mode.EXCHANGER),
+                Generators.newKelemenGenerator(y -> produce(y::accept)),
+                Generators.newRingBufferGenerator(y -> produce(y::accept), 8));
+    }
+
+    @Test
+    void closeRunsFinallyBlocksOfSuspendedProducer() {
+        List<GeneratorService<Integer>> generators = generators();
+        for (GeneratorService<Integer> g : generators) {
+            GeneratorIterator<Integer> it = g.closeableIterator();
+            try (it) {
+                assertThat(it.next()).isEqualTo(0);
+                assertThat(it.next()).isEqualTo(1);
+            }
+            assertThat(finished.get()).isEqualTo(started.get());
+            assertThat(it.hasNext()).isFalse();
+        }
+        assertThat(finished.get()).isEqualTo(generators.size());
+    }
+
+    @Test
+    void closeOfRobahoGeneratorInterruptsProducerAndWaitsBounded() throws InterruptedException {
+        for (Generator.Mode mode : Generator.Mode.values()) {
+            // blocks after the yield returned false, until interrupted
+            CountDownLatch never = new CountDownLatch(1);
+            Generator.CloseableIterator<Integer> blocking = new Generator<Integer>(y -> {
+                try {
+                    while (true) {
+                        y.yield(0);
+                        never.await();
+                    }
+                } catch (InterruptedException e) {
+                    finished.incrementAndGet();
+                }
+            }, mode).iterator();
+            assertThat(blocking.next()).isZero();
+            blocking.close();
+            assertThat(finished.get()).isEqualTo(1);
+
+            // ignores the result of the yield and the interrupt
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch unwound = new CountDownLatch(1);
+            Generator.CloseableIterator<Integer> stubborn = new Generator<Integer>(y -> {
+                try {
+                    y.yield(0);
+                    y.yield(1);
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException ignored) {
+                            // keeps running
+                        }
+                    }
+                } finally {
+                    unwound.countDown();
+                }
+            }, mode).iterator();
+            assertThat(stubborn.next()).isZero();
+            long start = System.nanoTime();
+            stubborn.close();
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Generator.CLOSE_TIMEOUT.toNanos());
+            assertThat(unwound.getCount()).isOne();
+            release.countDown();
+            assertThat(unwound.await(10, TimeUnit.SECONDS)).isTrue();
+            finished.set(0);
+        }
+    }
+
+    @Test
+    void closeOfThreadBackedGeneratorInterruptsProducerAndWaitsBounded() throws InterruptedException {
+        List<Function<Consumer<Generators.Yieldable<Integer>>, GeneratorService<Integer>>> backends = List.of(
+                task -> Generators.newKelemenGenerator(y -> task.accept(y::accept)),
+                task -> Generators.newRingBufferGenerator(y -> task.accept(y::accept), 8),
+                task -> Generators.prefetching(task, 4),
+                task -> Generators.newGenerator(GeneratorBackend.VIRTUAL_THREAD, task));
+        for (Function<Consumer<Generators.Yieldable<Integer>>, GeneratorService<Integer>> backend : backends) {
+            // blocks outside of the yield, until interrupted
+            CountDownLatch never = new CountDownLatch(1);
+            GeneratorIterator<Integer> blocking = backend.apply(y -> {
+                try {
+                    y.yield(0);
+                    y.yield(1);
+                    never.await();
+                } catch (InterruptedException e) {
+                    finished.incrementAndGet();
+                }
+            }).closeableIterator();
+            assertThat(blocking.next()).isZero();
+            blocking.close();
+            assertThat(finished.get()).isEqualTo(1);
+
+            // ignores the interrupt
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch unwound = new CountDownLatch(1);
+            GeneratorIterator<Integer> stubborn = backend.apply(y -> {
+                try {
+                    y.yield(0);
+                    y.yield(1);
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException ignored) {
+                            // keeps running
+                        }
+                    }
+                } finally {
+                    unwound.countDown();
+                }
+            }).closeableIterator();
+            assertThat(stubborn.next()).isZero();
+            long start = System.nanoTime();
+            stubborn.close();
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(GeneratorFactories.CLOSE_TIMEOUT.toNanos());
+            assertThat(unwound.getCount()).isOne();
+            release.countDown();
+            assertThat(unwound.await(10, TimeUnit.SECONDS)).isTrue();
+            finished.set(0);
+        }
+    }
+
+    @Test
+    void closeBeforeFirstPullNeverRunsProducer() {
+        for (GeneratorService<Integer> g : generators()) {
+            GeneratorIterator<Integer> it = g.closeableIterator();
+            it.close();
+            assertThat(it.hasNext()).isFalse();
+        }
+        assertThat(started.get()).isZero();
+    }
+
+    @Test
+    void primitiveGeneratorIsCloseable() {
+        IntGeneratorService g = Generators.newIntGenerator(y -> {
+            started.incrementAndGet();
+            try {
+                for (int i = 0; ; i++) {
+                    y.yieldInt(i);
+                }
+            } finally {
+                finished.incrementAndGet();
+            }
+        });
+        GeneratorIterator<Integer> it = g.closeableIterator();
+        try (it) {
+            assertThat(it.next()).isEqualTo(0);
+        }
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(it.hasNext()).isFalse();
+    }
+
+    @Test
+    void closedPooledGeneratorIsReused() {
+        GeneratorPool pool = new GeneratorPool(4);
+
+        RunnableGenerator<Integer> first = pool.acquire(() -> produce(RunnableGenerator::yield));
+        assertThat(first.get()).isEqualTo(0);
+        first.close();
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(first.get()).isNull();
+        assertThat(pool.release(first)).isTrue();
+
+        RunnableGenerator<String> second = pool.acquire(() -> RunnableGenerator.yield("a"));
+        assertThat(second).isSameAs(first);
+        assertThat(second.get()).isEqualTo("a");
+        assertThat(second.get()).isNull();
+    }
+}
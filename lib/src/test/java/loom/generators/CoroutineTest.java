@@ -0,0 +1,121 @@
+package loom.generators;
+
+import loom.generators.sk4is3r.Coroutine;
+import loom.generators.sk4is3r.GeneratorClosedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CoroutineTest {
+
+    /**
+     * Sums the values it is resumed with and yields the running sum, until it is resumed with a negative value.
+     */
+    private static Integer runningSum(Integer first) {
+        int sum = 0;
+        for (int value = first; value >= 0; value = Coroutine.<Integer, Integer>yield(sum)) {
+            sum += value;
+        }
+        return -sum;
+    }
+
+    @Test
+    void resumeExchangesValuesWithYield() {
+        Coroutine<Integer, Integer> coroutine = new Coroutine<>(CoroutineTest::runningSum);
+        assertThat(coroutine.resume(1)).isEqualTo(1);
+        assertThat(coroutine.resume(2)).isEqualTo(3);
+        assertThat(coroutine.resume(3)).isEqualTo(6);
+        assertThat(coroutine.isDone()).isFalse();
+        assertThat(coroutine.resume(-1)).isEqualTo(-6);
+        assertThat(coroutine.isDone()).isTrue();
+        assertThatThrownBy(() -> coroutine.resume(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void parserPullsTokensFromConsumer() {
+        // the target is a parser which asks for the next token, the consumer is a lexer
+        Coroutine<String, String> parser = new Coroutine<>(first -> {
+            List<String> sum = new ArrayList<>();
+            for (String token = first; !token.equals(";"); token = Coroutine.yield("more")) {
+                sum.add(token);
+            }
+            return String.join("+", sum);
+        });
+        String reply = null;
+        for (String token : "1 2 3 ;".split(" ")) {
+            reply = parser.resume(token);
+        }
+        assertThat(reply).isEqualTo("1+2+3");
+        assertThat(parser.isDone()).isTrue();
+    }
+
+    @Test
+    void failureIsThrownByResume() {
+        IllegalArgumentException failure = new IllegalArgumentException("negative");
+        Coroutine<Integer, Integer> coroutine = new Coroutine<>(first -> {
+            int value = first;
+            while (value >= 0) {
+                value = Coroutine.<Integer, Integer>yield(value * 2);
+            }
+            throw failure;
+        });
+        assertThat(coroutine.resume(2)).isEqualTo(4);
+        assertThatThrownBy(() -> coroutine.resume(-1)).isSameAs(failure);
+        assertThat(coroutine.isDone()).isTrue();
+    }
+
+    @Test
+    void closeUnwindsSuspendedTarget() {
+        List<String> events = new ArrayList<>();
+        Coroutine<Integer, Integer> coroutine = new Coroutine<>(first -> {
+            try {
+                return Coroutine.<Integer, Integer>yield(first);
+            } catch (GeneratorClosedException e) {
+                events.add("closed");
+                throw e;
+            } finally {
+                events.add("finally");
+            }
+        });
+        assertThat(coroutine.resume(1)).isEqualTo(1);
+        coroutine.close();
+        assertThat(events).containsExactly("closed", "finally");
+        assertThat(coroutine.isDone()).isTrue();
+        assertThatThrownBy(() -> coroutine.resume(2)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void coroutinesNest() {
+        Coroutine<Integer, Integer> outer = new Coroutine<>(first -> {
+            Coroutine<Integer, Integer> inner = new Coroutine<>(CoroutineTest::runningSum);
+            int value = first;
+            while (value >= 0) {
+                value = Coroutine.<Integer, Integer>yield(inner.resume(value) * 10);
+            }
+            return inner.resume(-1);
+        });
+        assertThat(outer.resume(1)).isEqualTo(10);
+        assertThat(outer.resume(2)).isEqualTo(30);
+        assertThat(outer.resume(-1)).isEqualTo(-3);
+    }
+
+    @Test
+    void yieldWhileHoldingMonitorFails() {
+        Object lock = new Object();
+        Coroutine<Integer, Integer> coroutine = new Coroutine<>(first -> {
+            synchronized (lock) {
+                return Coroutine.<Integer, Integer>yield(first);
+            }
+        });
+        assertThatThrownBy(() -> coroutine.resume(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void yieldOutsideCoroutineFails() {
+        assertThatThrownBy(() -> Coroutine.yield(1)).isInstanceOf(IllegalStateException.class);
+    }
+}
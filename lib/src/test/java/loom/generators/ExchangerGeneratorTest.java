@@ -0,0 +1,47 @@
+package loom.generators;
+
+import loom.generators.robaho.Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExchangerGeneratorTest {
+
+    @Test
+    void deliversValuesInOrderIncludingNull() {
+        Generator<String> g = new Generator<>(y -> {
+            y.yield("a");
+            y.yield(null);
+            y.yield("b");
+        }, Generator.Mode.EXCHANGER);
+
+        List<String> result = new ArrayList<>();
+        g.iterator().forEachRemaining(result::add);
+        assertThat(result).isEqualTo(Arrays.asList("a", null, "b"));
+    }
+
+    @Test
+    void producerDoesNotRunAheadOfConsumer() {
+        AtomicInteger produced = new AtomicInteger();
+        Generator<Integer> g = new Generator<>(y -> {
+            for (int i = 0; i < 3; i++) {
+                produced.incrementAndGet();
+                y.yield(i);
+            }
+        }, Generator.Mode.EXCHANGER);
+
+        Iterator<Integer> it = g.iterator();
+        assertThat(produced.get()).isZero();
+        assertThat(it.next()).isEqualTo(0);
+        assertThat(it.next()).isEqualTo(1);
+        assertThat(produced.get()).isEqualTo(2);
+        assertThat(it.next()).isEqualTo(2);
+        assertThat(it.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FusedCombinatorTest {
+
+    private static GeneratorService<Integer> range(int from, int to) {
+        return Generators.newRunnableGenerator(y -> {
+            for (int i = from; i < to; i++) {
+                y.yield(i);
+            }
+        });
+    }
+
+    private static <T> List<T> pull(GeneratorService<T> g) {
+        List<T> result = new ArrayList<>();
+        for (Iterator<T> it = g.iterator(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    private static <T> List<T> push(GeneratorService<T> g) {
+        List<T> result = new ArrayList<>();
+        g.forEach(result::add);
+        return result;
+    }
+
+    private static <T> void assertPulledAndPushed(Function<GeneratorService<Integer>, GeneratorService<T>> chain,
+                                                  List<T> expected) {
+        assertThat(pull(chain.apply(range(0, 10)))).isEqualTo(expected);
+        assertThat(push(chain.apply(range(0, 10)))).isEqualTo(expected);
+    }
+
+    @Test
+    void statelessStages() {
+        assertPulledAndPushed(g -> g.map(i -> i * 2).filter(i -> i % 3 == 0), List.of(0, 6, 12, 18));
+        assertPulledAndPushed(g -> g.filter(i -> i < 3).flatMap(i -> range(0, i)), List.of(0, 0, 1));
+        assertPulledAndPushed(g -> g.flatMap(i -> List.of(i, -i)).take(4), List.of(0, 0, 1, -1));
+    }
+
+    @Test
+    void takeStopsProducerAfterLastElement() {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        Function<GeneratorService<Integer>, GeneratorService<Integer>> chain = ignored -> {
+            GeneratorService<Integer> infinite = Generators.newRunnableGenerator(y -> {
+                try {
+                    for (int i = 0; ; i++) {
+                        produced.incrementAndGet();
+                        y.yield(i);
+                    }
+                } finally {
+                    finished.incrementAndGet();
+                }
+            });
+            return infinite.map(i -> i + 1).take(3);
+        };
+
+        assertPulledAndPushed(chain, List.of(1, 2, 3));
+        assertThat(produced.get()).isEqualTo(6);
+        assertThat(finished.get()).isEqualTo(2);
+        assertPulledAndPushed(g -> g.take(0), List.of());
+    }
+
+    @Test
+    void zipAndInterleave() {
+        assertPulledAndPushed(g -> g.zip(range(100, 103), Integer::sum), List.of(100, 102, 104));
+        assertPulledAndPushed(g -> g.take(3).zip(range(100, 110), Integer::sum), List.of(100, 102, 104));
+        assertPulledAndPushed(g -> g.take(3).interleave(range(100, 105)), List.of(0, 100, 1, 101, 2, 102, 103, 104));
+        assertPulledAndPushed(g -> g.take(3).interleave(range(100, 101)), List.of(0, 100, 1, 2));
+    }
+}
@@ -0,0 +1,99 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GeneratorBackendTest {
+
+    private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+    private static List<Object> pull(GeneratorService<Integer> g) {
+        List<Object> seen = new ArrayList<>();
+        Iterator<Integer> it = g.iterator();
+        try {
+            while (it.hasNext()) {
+                seen.add(it.next());
+            }
+        } catch (RuntimeException e) {
+            seen.add(e);
+        }
+        return seen;
+    }
+
+    @Test
+    void everyBackendWorksWithTheTestJvmOptions() {
+        for (GeneratorBackend backend : GeneratorBackend.values()) {
+            assertThat(BackendSelection.probe(backend)).as(backend.name()).isNull();
+        }
+    }
+
+    @Test
+    void backendsBehaveAlike() {
+        for (GeneratorBackend backend : GeneratorBackend.values()) {
+            assertThat(pull(Generators.newGenerator(backend, y -> {
+                for (int i = 0; i < 100; i++) {
+                    y.yield(i);
+                }
+                throw FAILURE;
+            }))).as(backend.name()).hasSize(101).startsWith(0, 1, 2).endsWith(99, FAILURE);
+        }
+    }
+
+    @Test
+    void newGeneratorUsesSelectedBackend() {
+        assertThat(Generators.backend()).isSameAs(Generators.backend());
+        if (System.getProperty(BackendSelection.BACKEND_PROPERTY) == null
+                && System.getProperty(BackendSelection.CALIBRATION_PROPERTY) == null) {
+            assertThat(Generators.backend()).isEqualTo(GeneratorBackend.CONTINUATION);
+        }
+        assertThat(pull(Generators.newGenerator(y -> {
+            y.yield(1);
+            y.yield(2);
+        }))).containsExactly(1, 2);
+    }
+
+    @Test
+    void fastestAvailableBackendIsChosen() {
+        Map<GeneratorBackend, Double> costs = new EnumMap<>(GeneratorBackend.class);
+        costs.put(GeneratorBackend.CONTINUATION, 200.0);
+        costs.put(GeneratorBackend.CUSTOM_SCHEDULER, 100.0);
+        costs.put(GeneratorBackend.VIRTUAL_THREAD, 300.0);
+        assertThat(BackendSelection.fastest(costs, Set.of())).isEqualTo(GeneratorBackend.CUSTOM_SCHEDULER);
+        assertThat(BackendSelection.fastest(costs, Set.of(GeneratorBackend.CUSTOM_SCHEDULER)))
+                .isEqualTo(GeneratorBackend.CONTINUATION);
+        assertThat(BackendSelection.fastest(Map.of(GeneratorBackend.VIRTUAL_THREAD, 1.0), Set.of()))
+                .isEqualTo(GeneratorBackend.VIRTUAL_THREAD);
+        assertThat(BackendSelection.fastest(Map.of(), Set.of(GeneratorBackend.CONTINUATION)))
+                .isEqualTo(GeneratorBackend.CUSTOM_SCHEDULER);
+        assertThat(BackendSelection.fastest(costs, EnumSet.allOf(GeneratorBackend.class)))
+                .isEqualTo(GeneratorBackend.VIRTUAL_THREAD);
+    }
+
+    @Test
+    void calibrationTableCoversEveryBackend() {
+        assertThat(BackendSelection.calibration()).containsOnlyKeys(GeneratorBackend.values());
+
+        Properties properties = new Properties();
+        properties.setProperty("CONTINUATION", " 12.5 ");
+        properties.setProperty("CUSTOM_SCHEDULER", "fast");
+        properties.setProperty("OTHER", "1");
+        assertThat(BackendSelection.costs(properties)).containsExactly(Map.entry(GeneratorBackend.CONTINUATION, 12.5));
+    }
+
+    @Test
+    void nullBackendIsRejected() {
+        assertThatThrownBy(() -> Generators.newGenerator(null, y -> {
+        })).isInstanceOf(NullPointerException.class);
+    }
+}
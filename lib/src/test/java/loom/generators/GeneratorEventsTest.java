@@ -0,0 +1,182 @@
+package loom.generators;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import loom.generators.jfr.GeneratorTracker;
+import loom.generators.robaho.Generator;
+import loom.generators.sk4is3r.RunnableGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Needs <code>-Dloom.generators.jfr.backends=all</code>, which the <code>eventsTest</code> task sets. The
+ * <code>test</code> task leaves the generators uninstrumented and skips this class.
+ */
+public class GeneratorEventsTest {
+
+    private static final List<String> BACKENDS = List.of("sk4is3r", "mvysny", "robaho", "kelemen");
+
+    private static void produce(Generators.Yieldable<Integer> y) {
+        for (int i = 0; i < 10; i++) {
+            y.yield(i);
+        }
+    }
+
+    private static void produceUntilStopped(Generator.Callback<Integer> y) {
+        for (int i = 0; i < 10 && y.yield(i); i++) {
+            // produce until closed
+        }
+    }
+
+    private static List<RecordedEvent> record(Runnable body) throws IOException {
+        Path file = Files.createTempFile("generators", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : List.of("GeneratorCreated", "GeneratorResume", "GeneratorSuspend", "GeneratorPark",
+                    "GeneratorPinned", "GeneratorEnd")) {
+                recording.enable("loom.generators." + event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            body.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Pulls explicitly, <code>forEachRemaining</code> may push the values without creating a generator.
+     */
+    private static void pull(Iterator<Integer> it) {
+        while (it.hasNext()) {
+            it.next();
+        }
+    }
+
+    private static Map<String, List<RecordedEvent>> byType(List<RecordedEvent> events) {
+        return events.stream().collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+    }
+
+    @Test
+    void emitsLifecycleOfEveryBackend() throws IOException {
+        BACKENDS.forEach(backend -> assumeTrue(GeneratorTracker.isEnabled(backend)));
+
+        List<RecordedEvent> events = record(() -> {
+            for (GeneratorService<Integer> g : List.<GeneratorService<Integer>>of(
+                    Generators.newRunnableGenerator(GeneratorEventsTest::produce),
+                    Generators.newMvySnyGenerator(y -> produce(y::yield)),
+                    Generators.newRobahoGenerator(GeneratorEventsTest::produceUntilStopped),
+                    Generators.newKelemenGenerator(y -> produce(y::accept)))) {
+                pull(g.iterator());
+            }
+        });
+
+        Map<String, List<RecordedEvent>> byType = byType(events);
+        assertThat(byType.get("loom.generators.GeneratorCreated"))
+                .extracting(e -> e.getString("backend"))
+                .containsExactlyInAnyOrderElementsOf(BACKENDS);
+        List<RecordedEvent> ends = byType.get("loom.generators.GeneratorEnd");
+        assertThat(ends).extracting(e -> e.getString("backend")).containsExactlyInAnyOrderElementsOf(BACKENDS);
+        assertThat(ends).allSatisfy(e -> {
+            assertThat(e.getString("outcome")).isEqualTo("COMPLETED");
+            assertThat(e.getLong("yields")).isEqualTo(10);
+        });
+        assertThat(byType.get("loom.generators.GeneratorResume"))
+                .extracting(e -> e.getString("backend"))
+                .containsOnly("sk4is3r", "mvysny")
+                .hasSize(2 * 11);
+        assertThat(byType.get("loom.generators.GeneratorSuspend"))
+                .allSatisfy(e -> assertThat(e.getInt("stackFrames")).isPositive());
+        assertThat(byType.get("loom.generators.GeneratorPark"))
+                .extracting(e -> e.getString("backend"))
+                .containsOnly("robaho", "kelemen");
+    }
+
+    @Test
+    void reportsClosedAndFailedGenerators() throws IOException {
+        assumeTrue(GeneratorTracker.isEnabled("sk4is3r"));
+
+        List<RecordedEvent> events = record(() -> {
+            GeneratorIterator<Integer> closed = Generators.newRunnableGenerator(GeneratorEventsTest::produce, 4)
+                    .closeableIterator();
+            closed.next();
+            closed.close();
+            try {
+                pull(Generators.<Integer>newRunnableGenerator(y -> {
+                    y.yield(1);
+                    throw new IllegalStateException("boom");
+                }).iterator());
+            } catch (IllegalStateException expected) {
+                // reported as FAILED
+            }
+        });
+
+        assertThat(byType(events).get("loom.generators.GeneratorEnd"))
+                .extracting(e -> e.getString("outcome"))
+                .containsExactly("CLOSED", "FAILED");
+    }
+
+    @Test
+    void reportsPinnedYields() throws IOException {
+        assumeTrue(GeneratorTracker.isEnabled("sk4is3r"));
+        Object lock = new Object();
+
+        List<RecordedEvent> events = record(() -> assertThatThrownBy(
+                () -> pull(Generators.<Integer>newRunnableGenerator(y -> {
+                    synchronized (lock) {
+                        y.yield(1);
+                    }
+                }).iterator())).isInstanceOf(IllegalStateException.class));
+
+        assertThat(byType(events).get("loom.generators.GeneratorPinned"))
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getString("reason")).isEqualTo("MONITOR");
+                    assertThat(e.getStackTrace().getFrames()).anyMatch(frame -> frame.getMethod().getType().getName()
+                            .equals(GeneratorEventsTest.class.getName()));
+                });
+    }
+
+    private static void abandonAfterFirstValue() {
+        RunnableGenerator<Integer> g = new RunnableGenerator<>(() -> produce(RunnableGenerator::yield));
+        assertThat(g.get()).isZero();
+    }
+
+    @Test
+    void reportsAbandonedGenerators() throws IOException {
+        assumeTrue(GeneratorTracker.isEnabled("sk4is3r"));
+
+        List<RecordedEvent> events = record(() -> {
+            abandonAfterFirstValue();
+            for (int i = 0; i < 20; i++) {
+                System.gc();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+
+        assertThat(byType(events).get("loom.generators.GeneratorEnd"))
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getString("outcome")).isEqualTo("ABANDONED");
+                    assertThat(e.getLong("resumes")).isEqualTo(1);
+                });
+    }
+}
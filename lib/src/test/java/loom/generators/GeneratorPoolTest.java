@@ -0,0 +1,94 @@
+package loom.generators;
+
+import loom.generators.sk4is3r.GeneratorPool;
+import loom.generators.sk4is3r.RunnableGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GeneratorPoolTest {
+
+    private static void drain(RunnableGenerator<?> generator) {
+        while (generator.get() != null) {
+            // consume
+        }
+    }
+
+    @Test
+    void finishedGeneratorIsReusedForNextTarget() {
+        GeneratorPool pool = new GeneratorPool(4);
+
+        RunnableGenerator<Integer> first = pool.acquire(() -> {
+            RunnableGenerator.yield(1);
+            RunnableGenerator.yield(2);
+        });
+        assertThat(first.get()).isEqualTo(1);
+        assertThat(first.get()).isEqualTo(2);
+        assertThat(first.get()).isNull();
+        assertThat(first.isDone()).isTrue();
+        assertThat(pool.release(first)).isTrue();
+
+        RunnableGenerator<String> second = pool.acquire(() -> RunnableGenerator.yield("a"));
+        assertThat(second).isSameAs(first);
+        assertThat(second.isDone()).isFalse();
+        assertThat(second.get()).isEqualTo("a");
+        assertThat(second.get()).isNull();
+    }
+
+    @Test
+    void unfinishedGeneratorIsNotPooled() {
+        GeneratorPool pool = new GeneratorPool(4);
+
+        RunnableGenerator<Integer> generator = pool.acquire(() -> {
+            RunnableGenerator.yield(1);
+            RunnableGenerator.yield(2);
+        });
+        generator.get();
+
+        assertThat(pool.release(generator)).isFalse();
+        assertThat(pool.release(new RunnableGenerator<>(() -> {
+        }))).isFalse();
+    }
+
+    @Test
+    void failureIsRethrownAndGeneratorStaysReusable() {
+        GeneratorPool pool = new GeneratorPool(1);
+
+        RunnableGenerator<Integer> generator = pool.acquire(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThatThrownBy(generator::get).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(pool.release(generator)).isTrue();
+
+        RunnableGenerator<Integer> reused = pool.acquire(() -> RunnableGenerator.yield(3));
+        assertThat(reused).isSameAs(generator);
+        assertThat(reused.get()).isEqualTo(3);
+        drain(reused);
+    }
+
+    @Test
+    void pooledGeneratorService() {
+        GeneratorPool pool = new GeneratorPool(1);
+
+        for (int run = 0; run < 3; run++) {
+            int offset = run * 10;
+            GeneratorService<Integer> g = Generators.newPooledRunnableGenerator(pool, y -> {
+                for (int i = 0; i < 3; i++) {
+                    y.yield(offset + i);
+                }
+            });
+            assertThat(g).containsExactly(offset, offset + 1, offset + 2);
+        }
+
+        Iterator<Integer> failing = Generators.<Integer>newPooledRunnableGenerator(pool, y -> {
+            y.yield(1);
+            throw new IllegalStateException("boom");
+        }).iterator();
+        assertThat(failing.next()).isEqualTo(1);
+        assertThatThrownBy(failing::hasNext).isInstanceOf(IllegalStateException.class);
+        assertThat(failing.hasNext()).isFalse();
+    }
+}
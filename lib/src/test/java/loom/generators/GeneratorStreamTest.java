@@ -0,0 +1,70 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneratorStreamTest {
+
+    private static final int COUNT = 10_000;
+
+    private static GeneratorService<Integer> numbers() {
+        return Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < COUNT; i++) {
+                y.yield(i);
+            }
+        });
+    }
+
+    @Test
+    void sequentialStream() {
+        assertThat(numbers().stream().collect(Collectors.toList()))
+                .containsExactlyElementsOf(IntStream.range(0, COUNT).boxed().toList());
+    }
+
+    @Test
+    void parallelStreamKeepsEncounterOrder() {
+        List<Integer> result = numbers().parallelStream()
+                .map(i -> i * 2)
+                .collect(Collectors.toList());
+
+        assertThat(result).containsExactlyElementsOf(IntStream.range(0, COUNT).map(i -> i * 2).boxed().toList());
+    }
+
+    @Test
+    void trySplitDrainsPrefixIntoArray() {
+        Spliterator<Integer> spliterator = numbers().spliterator();
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+
+        assertThat(prefix).isNotNull();
+        assertThat(prefix.estimateSize()).isEqualTo(GeneratorSpliterator.BATCH_UNIT);
+        assertThat(prefix.hasCharacteristics(Spliterator.SIZED)).isTrue();
+        List<Integer> first = new ArrayList<>();
+        prefix.forEachRemaining(first::add);
+        assertThat(first)
+                .containsExactlyElementsOf(IntStream.range(0, GeneratorSpliterator.BATCH_UNIT).boxed().toList());
+        assertThat(spliterator.tryAdvance(i -> assertThat(i).isEqualTo(GeneratorSpliterator.BATCH_UNIT))).isTrue();
+    }
+
+    @Test
+    void sizeHintsAndCharacteristics() {
+        GeneratorService<Integer> g = Generators.withHints(numbers(), COUNT,
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL);
+
+        Spliterator<Integer> spliterator = g.spliterator();
+        assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(COUNT);
+        assertThat(spliterator.hasCharacteristics(Spliterator.SUBSIZED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.NONNULL)).isTrue();
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertThat(prefix.getExactSizeIfKnown() + spliterator.getExactSizeIfKnown()).isEqualTo(COUNT);
+        assertThat(Generators.withHints(numbers(), COUNT, Spliterator.SIZED).parallelStream().count()).isEqualTo(COUNT);
+    }
+}
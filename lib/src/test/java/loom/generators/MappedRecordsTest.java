@@ -0,0 +1,125 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedRecordsTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<String> strings(GeneratorService<MappedRecord> records) {
+        List<String> values = new ArrayList<>();
+        Iterator<MappedRecord> it = records.iterator();
+        while (it.hasNext()) {
+            values.add(it.next().toString());
+        }
+        return values;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void linesMatchBufferedReader() throws IOException {
+        Path file = write("lines.txt", "alpha\nbeta\r\n\n\r\ngamma delta epsilon\nlast");
+        List<String> expected = Files.readAllLines(file, StandardCharsets.ISO_8859_1);
+
+        assertThat(strings(Generators.records(file, RecordFormat.LINES))).isEqualTo(expected);
+        // windows smaller than the records, so records are cut by the end of the windows
+        for (int windowSize : new int[]{1, 3, 8}) {
+            assertThat(strings(GeneratorBuilders.records(file, RecordFormat.LINES, windowSize))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void newlineAfterSimilarBytes() throws IOException {
+        // 0x0b differs from a newline in the lowest bit only
+        Path file = write("vt.txt", "abcdef\u000b\nabcdefgh\u000b\u000b\n\u000b\u000b");
+        assertThat(strings(Generators.records(file, RecordFormat.LINES)))
+                .containsExactly("abcdef\u000b", "abcdefgh\u000b\u000b", "\u000b\u000b");
+    }
+
+    @Test
+    void trailingNewlineDoesNotAddRecord() throws IOException {
+        Path file = write("trailing.txt", "a\nb\n");
+        assertThat(strings(GeneratorBuilders.records(file, RecordFormat.LINES, 2))).containsExactly("a", "b");
+    }
+
+    @Test
+    void emptyFileHasNoRecords() throws IOException {
+        Path file = write("empty.txt", "");
+        assertThat(strings(Generators.records(file, RecordFormat.LINES))).isEmpty();
+        assertThat(strings(Generators.records(file, RecordFormat.LENGTH_PREFIXED))).isEmpty();
+    }
+
+    @Test
+    void lengthPrefixedRecords() throws IOException {
+        List<String> expected = IntStream.range(0, 50).mapToObj("x"::repeat).toList();
+        Path file = dir.resolve("prefixed.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            for (String s : expected) {
+                out.writeInt(s.length());
+                out.writeBytes(s);
+            }
+        }
+        assertThat(strings(Generators.records(file, RecordFormat.LENGTH_PREFIXED))).isEqualTo(expected);
+        assertThat(strings(GeneratorBuilders.records(file, RecordFormat.LENGTH_PREFIXED, 16))).isEqualTo(expected);
+    }
+
+    @Test
+    void truncatedRecordFails() throws IOException {
+        Path file = dir.resolve("truncated.bin");
+        Files.write(file, new byte[]{0, 0, 0, 5, 'a', 'b'});
+        Iterator<MappedRecord> it = Generators.records(file, RecordFormat.LENGTH_PREFIXED).iterator();
+        assertThatThrownBy(it::hasNext).isInstanceOf(UncheckedIOException.class).hasMessageContaining("truncated");
+    }
+
+    @Test
+    void recordIsReusedUnlessCopied() throws IOException {
+        Path file = write("reuse.txt", "one\ntwo\n");
+        Iterator<MappedRecord> it = Generators.records(file, RecordFormat.LINES).iterator();
+        MappedRecord first = it.next();
+        MappedRecord copy = first.copy();
+        MappedRecord second = it.next();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.toString()).isEqualTo("two");
+        assertThat(copy.toString()).isEqualTo("one");
+        assertThat(copy.offset()).isZero();
+        assertThat(second.offset()).isEqualTo(4);
+    }
+
+    @Test
+    void viewsOfTheMappedBytes() throws IOException {
+        Path file = Files.writeString(dir.resolve("utf8.txt"), "x\nnaïve\n", StandardCharsets.UTF_8);
+        Iterator<MappedRecord> it = Generators.records(file, RecordFormat.LINES).iterator();
+        it.next();
+        MappedRecord record = it.next();
+
+        ByteBuffer buffer = record.buffer();
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(buffer.remaining()).isEqualTo(6);
+        assertThat(record.length()).isEqualTo(6);
+        assertThat(record.charAt(0)).isEqualTo('n');
+        assertThat(record.subSequence(0, 2).toString()).isEqualTo("na");
+        assertThat(record.toString(StandardCharsets.UTF_8)).isEqualTo("naïve");
+        assertThatThrownBy(() -> record.charAt(6)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
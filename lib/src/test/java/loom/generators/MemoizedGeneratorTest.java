@@ -0,0 +1,211 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MemoizedGeneratorTest {
+
+    private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicInteger produced = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    private Supplier<GeneratorService<Integer>> range(int count) {
+        return () -> {
+            runs.incrementAndGet();
+            return Generators.newRunnableGenerator(y -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        produced.incrementAndGet();
+                        y.yield(i);
+                    }
+                } finally {
+                    finished.incrementAndGet();
+                }
+            });
+        };
+    }
+
+    private static List<Integer> take(Iterator<Integer> it, int count) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < count && it.hasNext(); i++) {
+            values.add(it.next());
+        }
+        return values;
+    }
+
+    private static List<Integer> upTo(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    @Test
+    void replaysWithoutRunningProducerAgain() {
+        GeneratorService<Integer> memoized = Generators.memoized(range(10), 100);
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(10));
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(10));
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(produced.get()).isEqualTo(10);
+    }
+
+    @Test
+    void replayFallsThroughToLiveProducer() {
+        GeneratorService<Integer> memoized = Generators.memoized(range(10), 100);
+        Iterator<Integer> first = memoized.iterator();
+        assertThat(take(first, 3)).containsExactly(0, 1, 2);
+
+        Iterator<Integer> second = memoized.iterator();
+        assertThat(take(second, 5)).containsExactly(0, 1, 2, 3, 4);
+        assertThat(produced.get()).isEqualTo(5);
+        assertThat(take(first, 100)).containsExactly(3, 4, 5, 6, 7, 8, 9);
+        assertThat(take(second, 100)).containsExactly(5, 6, 7, 8, 9);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void evictedElementsAreRecomputed() {
+        GeneratorService<Integer> memoized = Generators.memoized(range(20), 4);
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(20));
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(20));
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void recomputingIteratorRejoinsCache() {
+        GeneratorService<Integer> memoized = Generators.memoized(range(30), 4);
+        Iterator<Integer> first = memoized.iterator();
+        assertThat(take(first, 12)).isEqualTo(upTo(12));
+
+        Iterator<Integer> second = memoized.iterator();
+        assertThat(take(second, 20)).isEqualTo(upTo(20));
+        assertThat(runs.get()).isEqualTo(2);
+        // the second run stopped at the head of the cache, the chunk starting at 4, so 4 to 11 were replayed
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(produced.get()).isEqualTo(12 + 4 + 8);
+        assertThat(take(first, 100)).isEqualTo(upTo(30).subList(12, 30));
+    }
+
+    @Test
+    void producerIsClosedWhenAllIteratorsAreClosedAndRecomputedLater() {
+        GeneratorService<Integer> memoized = Generators.memoized(range(10), 100);
+        GeneratorIterator<Integer> first = memoized.closeableIterator();
+        assertThat(take(first, 3)).containsExactly(0, 1, 2);
+        first.close();
+        assertThat(finished.get()).isEqualTo(1);
+
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(10));
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(take(memoized.iterator(), 100)).isEqualTo(upTo(10));
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsReplayed() {
+        GeneratorService<Integer> memoized = Generators.memoized(() -> {
+            runs.incrementAndGet();
+            return Generators.newRunnableGenerator(y -> {
+                y.yield(1);
+                throw FAILURE;
+            });
+        }, 100);
+        for (int i = 0; i < 2; i++) {
+            Iterator<Integer> it = memoized.iterator();
+            assertThat(it.next()).isEqualTo(1);
+            assertThatThrownBy(it::hasNext).isSameAs(FAILURE);
+            assertThat(it.hasNext()).isFalse();
+        }
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void intsAreRecordedUnboxed() {
+        IntGeneratorService memoized = Generators.memoizedInts(() -> {
+            runs.incrementAndGet();
+            return Generators.newIntGenerator(y -> {
+                for (int i = 0; i < 100; i++) {
+                    y.yieldInt(i * i);
+                }
+            });
+        }, 16);
+        int[] expected = IntStream.range(0, 100).map(i -> i * i).toArray();
+
+        PrimitiveIterator.OfInt first = memoized.iterator();
+        for (int i = 0; i < 90; i++) {
+            first.nextInt();
+        }
+        assertThat(memoized.intStream().toArray()).isEqualTo(expected);
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(memoized.intStream().toArray()).isEqualTo(expected);
+    }
+
+    @Test
+    void iteratorsOnDifferentThreads() throws InterruptedException, ExecutionException {
+        int count = 100_000;
+        GeneratorService<Integer> memoized = Generators.memoized(range(count), count);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Long>> sums = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                sums.add(executor.submit(() -> {
+                    long sum = 0;
+                    int expected = 0;
+                    for (int value : memoized) {
+                        assertThat(value).isEqualTo(expected++);
+                        sum += value;
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<Long> sum : sums) {
+                assertThat(sum.get()).isEqualTo((long) count * (count - 1) / 2);
+            }
+        }
+        assertThat(produced.get()).isEqualTo(count);
+    }
+
+    @Test
+    void laggingIteratorDoesNotRetainEvictedElements() throws InterruptedException {
+        List<WeakReference<int[]>> recorded = new ArrayList<>();
+        Supplier<GeneratorService<int[]>> source = () -> Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < 2000; i++) {
+                y.yield(new int[]{i});
+            }
+        });
+        GeneratorService<int[]> memoized = Generators.memoized(source, 4);
+        Iterator<int[]> lagging = memoized.iterator();
+        assertThat(lagging.next()[0]).isEqualTo(0);
+        Iterator<int[]> leading = memoized.iterator();
+        while (leading.hasNext()) {
+            recorded.add(new WeakReference<>(leading.next()));
+        }
+        for (int i = 0; i < 50 && recorded.get(1000).get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(recorded.subList(0, 1000)).allSatisfy(ref -> assertThat(ref.get()).isNull());
+
+        for (int i = 1; i < 2000; i++) {
+            assertThat(lagging.next()[0]).isEqualTo(i);
+        }
+        assertThat(lagging.hasNext()).isFalse();
+    }
+
+    @Test
+    void rejectsNegativeCap() {
+        assertThatThrownBy(() -> Generators.memoized(range(1), -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,115 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MergeSortedTest {
+
+    private record Entry(long key, int run) {
+    }
+
+    private static final Comparator<Entry> BY_KEY = Comparator.comparingLong(Entry::key);
+
+    private static List<List<Entry>> randomRuns(Random random, int runs) {
+        List<List<Entry>> result = new ArrayList<>();
+        for (int r = 0; r < runs; r++) {
+            int size = random.nextInt(200);
+            long[] keys = random.longs(size, 0, 100).sorted().toArray();
+            int run = r;
+            result.add(IntStream.range(0, size).mapToObj(i -> new Entry(keys[i], run)).toList());
+        }
+        return result;
+    }
+
+    private static List<GeneratorService<Entry>> generators(List<List<Entry>> runs) {
+        return runs.stream().map(run -> Generators.<Entry>newRunnableGenerator(y -> run.forEach(y::yield))).toList();
+    }
+
+    private static <T> List<T> pull(GeneratorService<T> g) {
+        List<T> values = new ArrayList<>();
+        for (T value : g) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Test
+    void mergesStablyForAnyNumberOfRuns() {
+        Random random = new Random(42);
+        for (int runs : new int[]{0, 1, 2, 3, 7, 64, 1000}) {
+            List<List<Entry>> data = randomRuns(random, runs);
+            // a stable sort of the concatenation keeps equal keys in the order of the runs
+            List<Entry> expected = data.stream().flatMap(List::stream).sorted(BY_KEY).toList();
+
+            assertThat(pull(Generators.mergeSorted(BY_KEY, generators(data)))).isEqualTo(expected);
+            assertThat(pull(Generators.mergeSortedByKey(Entry::key, generators(data)))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void pullsBatchesFromEachSource() {
+        AtomicInteger produced = new AtomicInteger();
+        List<GeneratorService<Integer>> sources = IntStream.range(0, 4)
+                .mapToObj(r -> Generators.<Integer>newRunnableGenerator(y -> {
+                    for (int i = 0; i < 1000; i++) {
+                        produced.incrementAndGet();
+                        y.yield(i * 4 + r);
+                    }
+                }))
+                .toList();
+        GeneratorIterator<Integer> it = Generators.mergeSorted(Comparator.<Integer>naturalOrder(), sources)
+                .closeableIterator();
+
+        assertThat(it.next()).isZero();
+        int batch = SortedMergeGenerator.batchSize(4);
+        assertThat(produced.get()).isEqualTo(4 * batch);
+        for (int i = 1; i < 4000; i++) {
+            assertThat(it.next()).isEqualTo(i);
+        }
+        assertThat(it.hasNext()).isFalse();
+    }
+
+    @Test
+    void closeClosesAllSources() {
+        AtomicInteger finished = new AtomicInteger();
+        List<GeneratorService<Integer>> sources = IntStream.range(0, 5)
+                .mapToObj(r -> Generators.<Integer>newRunnableGenerator(y -> {
+                    try {
+                        for (int i = 0; ; i++) {
+                            y.yield(i);
+                        }
+                    } finally {
+                        finished.incrementAndGet();
+                    }
+                }))
+                .toList();
+
+        try (GeneratorIterator<Integer> it = Generators.mergeSortedByKey(Integer::longValue, sources)
+                .closeableIterator()) {
+            assertThat(it.next()).isZero();
+        }
+        assertThat(finished.get()).isEqualTo(5);
+    }
+
+    @Test
+    void failureOfSourceIsThrown() {
+        IllegalStateException failure = new IllegalStateException("boom");
+        GeneratorService<Integer> broken = Generators.newRunnableGenerator(y -> {
+            y.yield(1);
+            throw failure;
+        });
+        GeneratorService<Integer> merged = Generators.mergeSorted(Comparator.naturalOrder(),
+                List.of(Generators.newRunnableGenerator(y -> y.yield(0)), broken));
+
+        assertThatThrownBy(() -> pull(merged)).isSameAs(failure);
+    }
+}
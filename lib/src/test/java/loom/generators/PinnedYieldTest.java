@@ -0,0 +1,104 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PinnedYieldTest {
+
+    private final Object lock = new Object();
+    private final List<Boolean> virtual = new ArrayList<>();
+
+    private Consumer<Generators.Yieldable<Integer>> synchronizedTask() {
+        return y -> {
+            virtual.add(Thread.currentThread().isVirtual());
+            y.yield(0);
+            synchronized (lock) {
+                y.yield(1);
+                y.yield(2);
+            }
+            y.yield(3);
+        };
+    }
+
+    /**
+     * Pulls explicitly, <code>forEachRemaining</code> may push the values without creating a generator.
+     */
+    private static List<Integer> pull(Iterator<Integer> it) {
+        List<Integer> values = new ArrayList<>();
+        while (it.hasNext()) {
+            values.add(it.next());
+        }
+        return values;
+    }
+
+    @Test
+    void pinnedYieldFailsFast() {
+        long pinned = GeneratorMetrics.pinnedYields();
+        AtomicBoolean resumed = new AtomicBoolean();
+        Iterator<Integer> it = Generators.<Integer>newRunnableGenerator(y -> {
+            y.yield(0);
+            synchronized (lock) {
+                y.yield(1);
+                resumed.set(true);
+            }
+        }).iterator();
+        assertThat(it.next()).isZero();
+        assertThatThrownBy(it::hasNext).isInstanceOf(IllegalStateException.class).hasMessageContaining("MONITOR");
+        assertThat(resumed).isFalse();
+        assertThat(GeneratorMetrics.pinnedYields() - pinned).isEqualTo(1);
+    }
+
+    @Test
+    void bufferedGeneratorOnlyFailsIfItSuspendsWhilePinned() {
+        List<Integer> values = pull(Generators.<Integer>newRunnableGenerator(y -> {
+            for (int i = 0; i < 10; i += 4) {
+                y.yield(i);
+                synchronized (lock) {
+                    y.yield(i + 1);
+                    y.yield(i + 2);
+                }
+                y.yield(i + 3);
+            }
+        }, 4).iterator());
+        assertThat(values).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    }
+
+    @Test
+    void laterIteratorsOfPinningGeneratorRunOnVirtualThread() {
+        long fallbacks = GeneratorMetrics.pinnedFallbacks();
+        GeneratorService<Integer> generator = Generators.newRunnableGenerator(synchronizedTask());
+        assertThatThrownBy(() -> pull(generator.iterator())).isInstanceOf(IllegalStateException.class);
+        assertThat(pull(generator.iterator())).containsExactly(0, 1, 2, 3);
+        assertThat(GeneratorMetrics.pinnedFallbacks() - fallbacks).isEqualTo(1);
+
+        // the fallback is decided per generator, not per task class
+        assertThatThrownBy(() -> pull(Generators.newRunnableGenerator(synchronizedTask()).iterator()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(virtual).containsExactly(false, true, false);
+    }
+
+    @Test
+    void continuationGeneratorFailsOnPinnedYield() {
+        long pinned = GeneratorMetrics.pinnedYields();
+        Generator<Integer> generator = new Generator<>() {
+            @Override
+            protected void run() {
+                this.yield(0);
+                synchronized (lock) {
+                    this.yield(1);
+                }
+            }
+        };
+        assertThat(generator.get()).isZero();
+        assertThatThrownBy(generator::get).isInstanceOf(IllegalStateException.class).hasMessageContaining("MONITOR");
+        assertThat(GeneratorMetrics.pinnedYields() - pinned).isEqualTo(1);
+    }
+}
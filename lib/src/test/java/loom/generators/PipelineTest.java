@@ -0,0 +1,202 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PipelineTest {
+
+    private static GeneratorService<Integer> range(int n) {
+        return Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < n; i++) {
+                y.yield(i);
+            }
+        });
+    }
+
+    private static GeneratorService<Integer> naturals(CountDownLatch unwound) {
+        return Generators.newRunnableGenerator(y -> {
+            try {
+                for (int i = 0; ; i++) {
+                    y.yield(i);
+                }
+            } finally {
+                unwound.countDown();
+            }
+        });
+    }
+
+    private static <T> List<T> drain(GeneratorService<T> generator) {
+        List<T> elements = new ArrayList<>();
+        generator.forEach(elements::add);
+        return elements;
+    }
+
+    @Test
+    void fanOutKeepsOrder() {
+        Pipeline<String> pipeline = Generators.pipeline(range(10_000))
+                .map("parse", i -> i * 2)
+                .map("enrich", 4, i -> {
+                    if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                        LockSupport.parkNanos(100_000);
+                    }
+                    return i + 1;
+                })
+                .map("serialize", String::valueOf)
+                .batchSize(7)
+                .capacity(2);
+        assertThat(drain(pipeline)).isEqualTo(IntStream.range(0, 10_000).mapToObj(i -> String.valueOf(i * 2 + 1))
+                .toList());
+    }
+
+    @Test
+    void stagesRunOnThreadsOfTheirOwn() {
+        Set<Thread> parse = ConcurrentHashMap.newKeySet();
+        Set<Thread> enrich = ConcurrentHashMap.newKeySet();
+        List<Integer> elements = drain(Generators.pipeline(range(1000))
+                .map("parse", i -> {
+                    parse.add(Thread.currentThread());
+                    return i;
+                })
+                .map("enrich", 2, i -> {
+                    enrich.add(Thread.currentThread());
+                    return i;
+                })
+                .batchSize(1));
+        assertThat(elements).hasSize(1000);
+        assertThat(parse).hasSize(1).doesNotContain(Thread.currentThread());
+        assertThat(parse.iterator().next().getName()).isEqualTo("parse");
+        assertThat(enrich).doesNotContain(Thread.currentThread()).doesNotContainAnyElementsOf(parse);
+    }
+
+    @Test
+    void generatorStageKeepsState() {
+        Pipeline<Integer> pipeline = Generators.pipeline(range(100))
+                .stage("pairs", in -> Generators.<Integer>newRunnableGenerator(y -> {
+                    Integer previous = null;
+                    for (Integer i : in) {
+                        if (previous != null) {
+                            y.yield(previous + i);
+                            previous = null;
+                        } else {
+                            previous = i;
+                        }
+                    }
+                }))
+                .batchSize(3);
+        assertThat(drain(pipeline)).isEqualTo(IntStream.range(0, 50).mapToObj(i -> 4 * i + 1).toList());
+    }
+
+    @Test
+    void stageWhichEndsEarlyStopsTheStagesBefore() throws InterruptedException {
+        CountDownLatch unwound = new CountDownLatch(1);
+        Pipeline<Integer> pipeline = Generators.pipeline(naturals(unwound))
+                .map("square", 2, i -> i * i)
+                .stage("first", in -> in.take(5));
+        assertThat(drain(pipeline)).containsExactly(0, 1, 4, 9, 16);
+        assertThat(unwound.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void closeStopsAllStages() throws InterruptedException {
+        CountDownLatch unwound = new CountDownLatch(1);
+        Pipeline<Integer> pipeline = Generators.pipeline(naturals(unwound)).map("negate", 3, i -> -i);
+        try (GeneratorIterator<Integer> it = pipeline.iterator()) {
+            assertThat(List.of(it.next(), it.next(), it.next())).containsExactly(0, -1, -2);
+        }
+        assertThat(unwound.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void dropAfterFirstElements(Pipeline<Integer> pipeline) {
+        GeneratorIterator<Integer> it = pipeline.iterator();
+        assertThat(List.of(it.next(), it.next(), it.next())).containsExactly(0, -1, -2);
+    }
+
+    @Test
+    void droppedIteratorStopsAllStagesOnceCollected() throws InterruptedException {
+        CountDownLatch unwound = new CountDownLatch(1);
+        dropAfterFirstElements(Generators.pipeline(naturals(unwound)).map("negate", 3, i -> -i));
+        for (int i = 0; i < 100 && !unwound.await(100, TimeUnit.MILLISECONDS); i++) {
+            System.gc();
+        }
+        assertThat(unwound.getCount()).isZero();
+    }
+
+    @Test
+    void failureOfAStageIsThrownToTheConsumer() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("boom");
+        CountDownLatch unwound = new CountDownLatch(1);
+        Pipeline<Integer> pipeline = Generators.pipeline(naturals(unwound))
+                .map("check", 2, i -> {
+                    if (i == 1000) {
+                        throw failure;
+                    }
+                    return i;
+                })
+                .map("copy", i -> i);
+        GeneratorIterator<Integer> it = pipeline.iterator();
+        assertThatThrownBy(() -> {
+            while (it.hasNext()) {
+                it.next();
+            }
+        }).isSameAs(failure);
+        assertThat(it.hasNext()).isFalse();
+        assertThat(unwound.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void everyIteratorRunsThePipelineAgain() {
+        Pipeline<Integer> pipeline = Generators.pipeline(range(10)).map("increment", 2, i -> i + 1);
+        assertThat(drain(pipeline)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(drain(pipeline)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void metricsShowTheBottleneck() {
+        Pipeline<Integer> pipeline = Generators.pipeline(range(2000))
+                .map("fast", i -> i)
+                .map("slow", i -> {
+                    LockSupport.parkNanos(200_000);
+                    return i;
+                })
+                .map("sink", i -> i)
+                .batchSize(10)
+                .capacity(4);
+        assertThat(pipeline.metrics()).isEmpty();
+        GeneratorIterator<Integer> it = pipeline.iterator();
+        for (int i = 0; i < 1000; i++) {
+            it.next();
+        }
+        List<Pipeline.StageMetrics> running = pipeline.metrics();
+        assertThat(running).extracting(Pipeline.StageMetrics::name).containsExactly("source", "fast", "slow", "sink");
+        assertThat(running.get(2).queueDepth()).isGreaterThan(0);
+        assertThat(running.get(2).queueCapacity()).isEqualTo(4);
+        it.forEachRemaining(i -> {
+        });
+
+        List<Pipeline.StageMetrics> metrics = pipeline.metrics();
+        assertThat(metrics).allSatisfy(stage -> assertThat(stage.elements()).isEqualTo(2000));
+        assertThat(metrics.stream().max(Comparator.comparingDouble(Pipeline.StageMetrics::utilization)))
+                .get().extracting(Pipeline.StageMetrics::name).isEqualTo("slow");
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        Pipeline<Integer> pipeline = Generators.pipeline(range(1));
+        assertThatThrownBy(() -> pipeline.map("zero", 0, i -> i)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pipeline.batchSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pipeline.capacity(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,96 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrefetchingGeneratorTest {
+
+    private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+    private static void failAfterThree(Generators.Yieldable<Integer> y) {
+        y.yield(1);
+        y.yield(2);
+        y.yield(3);
+        throw FAILURE;
+    }
+
+    private static List<Object> pull(GeneratorService<Integer> g) {
+        List<Object> seen = new ArrayList<>();
+        Iterator<Integer> it = g.iterator();
+        try {
+            while (it.hasNext()) {
+                seen.add(it.next());
+            }
+        } catch (RuntimeException e) {
+            seen.add(e);
+        }
+        return seen;
+    }
+
+    @Test
+    void behavesLikeSynchronousGenerator() {
+        List<Consumer<Generators.Yieldable<Integer>>> producers = List.of(
+                y -> {
+                    for (int i = 0; i < 1000; i++) {
+                        y.yield(i);
+                    }
+                },
+                PrefetchingGeneratorTest::failAfterThree,
+                y -> {
+                    y.yield(1);
+                    y.yield(null);
+                    y.yield(2);
+                });
+
+        for (Consumer<Generators.Yieldable<Integer>> producer : producers) {
+            List<Object> expected = pull(Generators.newRunnableGenerator(producer));
+            for (int lookahead : new int[]{1, 3, 64}) {
+                assertThat(pull(Generators.prefetching(producer, lookahead))).isEqualTo(expected);
+            }
+        }
+        assertThat(pull(Generators.prefetching(PrefetchingGeneratorTest::failAfterThree, 8)))
+                .containsExactly(1, 2, 3, FAILURE);
+    }
+
+    @Test
+    void producerRunsAheadAtMostLookahead() throws InterruptedException {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicReference<Thread> producer = new AtomicReference<>();
+        GeneratorService<Integer> g = Generators.prefetching(y -> {
+            producer.set(Thread.currentThread());
+            for (int i = 0; i < 100; i++) {
+                produced.incrementAndGet();
+                y.yield(i);
+            }
+        }, 4);
+
+        try (GeneratorIterator<Integer> it = g.closeableIterator()) {
+            assertThat(it.next()).isEqualTo(0);
+            // waits until the producer blocks, since the window is full
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (producer.get().getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(producer.get().getState()).isEqualTo(Thread.State.WAITING);
+            // one taken, four in the window and one blocked in yield
+            assertThat(produced.get()).isBetween(1, 6);
+            assertThat(producer.get()).isNotSameAs(Thread.currentThread());
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveLookahead() {
+        assertThatThrownBy(() -> Generators.prefetching(y -> y.yield(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
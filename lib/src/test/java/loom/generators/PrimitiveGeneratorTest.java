@@ -0,0 +1,72 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrimitiveGeneratorTest {
+
+    @Test
+    void intGeneratorYieldsAllValues() {
+        IntGeneratorService g = Generators.newIntGenerator(y -> {
+            for (int i = 0; i < 5; i++) {
+                y.yieldInt(i * i);
+            }
+        });
+
+        PrimitiveIterator.OfInt it = g.iterator();
+        for (int i = 0; i < 5; i++) {
+            assertThat(it.hasNext()).isTrue();
+            assertThat(it.nextInt()).isEqualTo(i * i);
+        }
+        assertThat(it.hasNext()).isFalse();
+        assertThatThrownBy(it::nextInt).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void emptyIntGenerator() {
+        IntGeneratorService g = Generators.newIntGenerator(y -> {
+        });
+
+        assertThat(g.iterator().hasNext()).isFalse();
+    }
+
+    @Test
+    void streamBridges() {
+        assertThat(Generators.newIntGenerator(y -> {
+            for (int i = 1; i <= 100; i++) {
+                y.yieldInt(i);
+            }
+        }).intStream().sum()).isEqualTo(5050);
+
+        assertThat(Generators.newLongGenerator(y -> {
+            for (long i = 0; i < 3; i++) {
+                y.yieldLong(Long.MAX_VALUE - i);
+            }
+        }).longStream().toArray()).containsExactly(Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MAX_VALUE - 2);
+
+        assertThat(Generators.newDoubleGenerator(y -> {
+            y.yieldDouble(0.5);
+            y.yieldDouble(1.5);
+        }).doubleStream().sum()).isEqualTo(2.0);
+    }
+
+    @Test
+    void nestedInsideRunnableGenerator() {
+        GeneratorService<String> g = Generators.newRunnableGenerator(y -> {
+            var ints = Generators.newIntGenerator(iy -> {
+                iy.yieldInt(1);
+                iy.yieldInt(2);
+            }).iterator();
+            while (ints.hasNext()) {
+                y.yield("v" + ints.nextInt());
+            }
+        });
+
+        assertThat(g).containsExactly("v1", "v2");
+    }
+}
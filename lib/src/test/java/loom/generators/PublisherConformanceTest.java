@@ -0,0 +1,369 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks {@link Generators#toPublisher(GeneratorService, Executor)} against the rules of the Reactive Streams
+ * specification, numbered as in the specification.
+ */
+public class PublisherConformanceTest {
+
+    private static final Executor DIRECT = Runnable::run;
+    private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+    private final AtomicInteger produced = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    private GeneratorService<Integer> range(int count) {
+        return Generators.newRunnableGenerator(y -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    produced.incrementAndGet();
+                    y.yield(i);
+                }
+            } finally {
+                finished.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Records all signals and fails on signals which overlap or come after a terminal signal.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<>());
+        final List<Throwable> violations = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch terminated = new CountDownLatch(1);
+        private final long initialRequest;
+        private final AtomicBoolean signalling = new AtomicBoolean();
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        private void signal(Runnable body) {
+            threads.add(Thread.currentThread());
+            if (!signalling.compareAndSet(false, true)) {
+                violations.add(new AssertionError("overlapping signals (rule 1.3)"));
+            }
+            if (terminated.getCount() == 0) {
+                violations.add(new AssertionError("signal after terminal signal (rule 1.7)"));
+            }
+            try {
+                body.run();
+            } finally {
+                signalling.set(false);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            signal(() -> {
+                if (this.subscription != null) {
+                    violations.add(new AssertionError("onSubscribe called twice (rule 2.12)"));
+                }
+                this.subscription = subscription;
+                if (initialRequest != 0) {
+                    subscription.request(initialRequest);
+                }
+            });
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            signal(() -> {
+                if (subscription == null) {
+                    violations.add(new AssertionError("onNext before onSubscribe (rule 1.9)"));
+                }
+                items.add(item);
+                onItem(item);
+            });
+        }
+
+        void onItem(Integer item) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signal(() -> error = throwable);
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            signal(() -> completed = true);
+            terminated.countDown();
+        }
+
+        void awaitTermination() throws InterruptedException {
+            assertThat(terminated.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private static List<Integer> upTo(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    @Test
+    void spec101_signalsNoMoreThanRequestedAndResumesProducerOncePerElement() {
+        RecordingSubscriber s = new RecordingSubscriber(3);
+        Generators.toPublisher(range(10), DIRECT).subscribe(s);
+
+        assertThat(s.items).containsExactly(0, 1, 2);
+        assertThat(produced.get()).isEqualTo(3);
+
+        s.subscription.request(2);
+        assertThat(s.items).containsExactlyElementsOf(upTo(5));
+        assertThat(produced.get()).isEqualTo(5);
+        assertThat(s.completed).isFalse();
+        assertThat(s.violations).isEmpty();
+    }
+
+    @Test
+    void spec102_completesOnceExhausted() throws InterruptedException {
+        RecordingSubscriber s = new RecordingSubscriber(Long.MAX_VALUE);
+        Generators.toPublisher(range(5), DIRECT).subscribe(s);
+
+        s.awaitTermination();
+        assertThat(s.items).containsExactlyElementsOf(upTo(5));
+        assertThat(s.completed).isTrue();
+        assertThat(s.error).isNull();
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(s.violations).isEmpty();
+    }
+
+    @Test
+    void spec104_signalsFailureOfProducer() throws InterruptedException {
+        RecordingSubscriber s = new RecordingSubscriber(Long.MAX_VALUE);
+        Generators.toPublisher(Generators.<Integer>newRunnableGenerator(y -> {
+            y.yield(1);
+            throw FAILURE;
+        }), DIRECT).subscribe(s);
+
+        s.awaitTermination();
+        assertThat(s.items).containsExactly(1);
+        assertThat(s.error).isSameAs(FAILURE);
+        assertThat(s.completed).isFalse();
+        assertThat(s.violations).isEmpty();
+    }
+
+    @Test
+    void spec109_rejectsNullSubscriber() {
+        Flow.Publisher<Integer> publisher = Generators.toPublisher(range(1), DIRECT);
+
+        assertThatThrownBy(() -> publisher.subscribe(null)).isInstanceOf(NullPointerException.class);
+        assertThat(produced.get()).isZero();
+    }
+
+    @Test
+    void spec109_signalsRejectedExecutionAfterOnSubscribe() throws InterruptedException {
+        RecordingSubscriber s = new RecordingSubscriber(1);
+        Generators.toPublisher(range(1), command -> {
+            throw new RejectedExecutionException();
+        }).subscribe(s);
+
+        s.awaitTermination();
+        assertThat(s.subscription).isNotNull();
+        assertThat(s.error).isInstanceOf(RejectedExecutionException.class);
+        assertThat(s.violations).isEmpty();
+
+        // rejected after the producer was started
+        AtomicInteger accepted = new AtomicInteger(2);
+        RecordingSubscriber midStream = new RecordingSubscriber(1);
+        Generators.toPublisher(range(10), command -> {
+            if (accepted.getAndDecrement() <= 0) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        }).subscribe(midStream);
+        midStream.subscription.request(1);
+        assertThat(midStream.items).containsExactly(0, 1);
+        assertThat(finished.get()).isZero();
+
+        midStream.subscription.request(1);
+        midStream.awaitTermination();
+        assertThat(midStream.error).isInstanceOf(RejectedExecutionException.class);
+        assertThat(finished.get()).isEqualTo(1);
+        midStream.subscription.request(1);
+        assertThat(midStream.items).containsExactly(0, 1);
+        assertThat(midStream.violations).isEmpty();
+    }
+
+    @Test
+    void spec111_everySubscriberGetsItsOwnIterator() throws InterruptedException {
+        Flow.Publisher<Integer> publisher = Generators.toPublisher(range(4), DIRECT);
+        RecordingSubscriber first = new RecordingSubscriber(Long.MAX_VALUE);
+        RecordingSubscriber second = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+
+        first.awaitTermination();
+        second.awaitTermination();
+        assertThat(first.items).containsExactlyElementsOf(upTo(4));
+        assertThat(second.items).containsExactlyElementsOf(upTo(4));
+        assertThat(produced.get()).isEqualTo(8);
+    }
+
+    @Test
+    void spec111_concurrentSubscribersDrainTheirOwnIterators() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Flow.Publisher<Integer> publisher = Generators.toPublisher(range(1000), executor);
+            List<RecordingSubscriber> subscribers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                RecordingSubscriber s = new RecordingSubscriber(1) {
+                    @Override
+                    void onItem(Integer item) {
+                        executor.execute(() -> subscription.request(1));
+                    }
+                };
+                subscribers.add(s);
+                publisher.subscribe(s);
+            }
+            for (RecordingSubscriber s : subscribers) {
+                s.awaitTermination();
+                assertThat(s.items).containsExactlyElementsOf(upTo(1000));
+                assertThat(s.error).isNull();
+                assertThat(s.violations).isEmpty();
+            }
+            assertThat(finished.get()).isEqualTo(8);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void spec203_signalsAreSerialAndSentOnTheExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<RecordingSubscriber> subscribers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                RecordingSubscriber s = new RecordingSubscriber(1) {
+                    @Override
+                    void onItem(Integer item) {
+                        // request from another thread, racing with the drain loop
+                        executor.execute(() -> subscription.request(1));
+                    }
+                };
+                subscribers.add(s);
+                Generators.toPublisher(range(1000), executor).subscribe(s);
+            }
+            for (RecordingSubscriber s : subscribers) {
+                s.awaitTermination();
+                assertThat(s.items).containsExactlyElementsOf(upTo(1000));
+                assertThat(s.completed).isTrue();
+                assertThat(s.violations).isEmpty();
+                assertThat(s.threads).doesNotContain(Thread.currentThread());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void spec303_requestFromOnNextDoesNotRecurse() throws InterruptedException {
+        List<Integer> depths = new ArrayList<>();
+        RecordingSubscriber s = new RecordingSubscriber(1) {
+            @Override
+            void onItem(Integer item) {
+                depths.add(StackWalker.getInstance().walk(frames -> (int) frames.count()));
+                subscription.request(1);
+            }
+        };
+        Generators.toPublisher(range(10_000), DIRECT).subscribe(s);
+
+        s.awaitTermination();
+        assertThat(s.items).hasSize(10_000);
+        assertThat(depths).containsOnly(depths.get(0));
+    }
+
+    @Test
+    void spec306_cancelUnwindsProducerAndLaterRequestsAreIgnored() {
+        RecordingSubscriber s = new RecordingSubscriber(2);
+        Generators.toPublisher(range(10), DIRECT).subscribe(s);
+
+        s.subscription.cancel();
+        assertThat(finished.get()).isEqualTo(1);
+        s.subscription.request(5);
+        s.subscription.cancel();
+
+        assertThat(s.items).containsExactly(0, 1);
+        assertThat(produced.get()).isEqualTo(2);
+        assertThat(s.completed).isFalse();
+        assertThat(s.error).isNull();
+        assertThat(s.violations).isEmpty();
+    }
+
+    @Test
+    void spec306_cancelFromOnNextStopsImmediately() {
+        RecordingSubscriber s = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            void onItem(Integer item) {
+                if (item == 3) {
+                    subscription.cancel();
+                }
+            }
+        };
+        Generators.toPublisher(range(100), DIRECT).subscribe(s);
+
+        assertThat(s.items).containsExactly(0, 1, 2, 3);
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(s.violations).isEmpty();
+    }
+
+    @Test
+    void spec309_nonPositiveRequestSignalsIllegalArgument() throws InterruptedException {
+        for (long n : new long[]{0, -1, Long.MIN_VALUE}) {
+            RecordingSubscriber s = new RecordingSubscriber(1);
+            Generators.toPublisher(range(10), DIRECT).subscribe(s);
+            s.subscription.request(n);
+
+            s.awaitTermination();
+            assertThat(s.items).containsExactly(0);
+            assertThat(s.error).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("3.9");
+            assertThat(s.violations).isEmpty();
+        }
+        assertThat(finished.get()).isEqualTo(3);
+    }
+
+    @Test
+    void spec317_supportsDemandUpToLongMaxValue() throws InterruptedException {
+        RecordingSubscriber s = new RecordingSubscriber(Long.MAX_VALUE - 1) {
+            @Override
+            void onItem(Integer item) {
+                if (item == 0) {
+                    // the pending demand overflows, which means unbounded
+                    subscription.request(Long.MAX_VALUE);
+                    subscription.request(Long.MAX_VALUE - 1);
+                }
+            }
+        };
+        Generators.toPublisher(range(100), DIRECT).subscribe(s);
+
+        s.awaitTermination();
+        assertThat(s.items).containsExactlyElementsOf(upTo(100));
+        assertThat(s.completed).isTrue();
+        assertThat(s.violations).isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PushModeTest {
+
+    private final List<Thread> producerThreads = new ArrayList<>();
+
+    private void produce(Generators.Yieldable<Integer> y) {
+        producerThreads.add(Thread.currentThread());
+        for (int i = 0; i < 5; i++) {
+            y.yield(i);
+        }
+    }
+
+    private List<GeneratorService<Integer>> generators() {
+        return List.of(
+                Generators.newRunnableGenerator(this::produce),
+                Generators.newRunnableGenerator(this::produce, 2),
+                Generators.newMvySnyGenerator(y -> produce(y::yield)),
+                Generators.newRobahoGenerator(y -> produce(y::yield)),
+                Generators.newKelemenGenerator(y -> produce(y::accept)));
+    }
+
+    @Test
+    void forEachRunsProducerOnCallingThread() {
+        for (GeneratorService<Integer> g : generators()) {
+            List<Integer> result = new ArrayList<>();
+            g.forEach(result::add);
+            assertThat(result).containsExactly(0, 1, 2, 3, 4);
+        }
+        assertThat(producerThreads).hasSize(5).containsOnly(Thread.currentThread());
+    }
+
+    private static void produceWithNull(Generators.Yieldable<Integer> y) {
+        y.yield(0);
+        y.yield(1);
+        y.yield(null);
+        y.yield(3);
+    }
+
+    private static List<Integer> pull(GeneratorService<Integer> g) {
+        List<Integer> result = new ArrayList<>();
+        for (Iterator<Integer> it = g.iterator(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    @Test
+    void nullEndsPushedElementsAsItEndsPulledOnes() {
+        List<Supplier<GeneratorService<Integer>>> generators = List.of(
+                () -> Generators.newRunnableGenerator(PushModeTest::produceWithNull),
+                () -> Generators.newRunnableGenerator(PushModeTest::produceWithNull, 2),
+                () -> Generators.newPooledRunnableGenerator(PushModeTest::produceWithNull),
+                () -> Generators.newMvySnyGenerator(y -> produceWithNull(y::yield)),
+                () -> Generators.newGenerator(GeneratorBackend.CUSTOM_SCHEDULER, PushModeTest::produceWithNull),
+                () -> Generators.prefetching(PushModeTest::produceWithNull, 4),
+                () -> Generators.<Integer>newRunnableGenerator(y -> {
+                    for (int i = 0; i < 4; i++) {
+                        y.yield(i);
+                    }
+                }).<Integer>map(i -> i == 2 ? null : i),
+                () -> Generators.newRunnableGenerator(y -> y.yieldFrom(
+                        Generators.newRunnableGenerator(PushModeTest::produceWithNull))));
+        for (Supplier<GeneratorService<Integer>> generator : generators) {
+            List<Integer> pushed = new ArrayList<>();
+            generator.get().forEach(pushed::add);
+            assertThat(pushed).containsExactly(0, 1);
+            assertThat(pull(generator.get())).containsExactly(0, 1);
+        }
+
+        // the kelemen backend rejects null elements either way
+        Supplier<GeneratorService<Integer>> kelemen =
+                () -> Generators.newKelemenGenerator(y -> produceWithNull(y::accept));
+        assertThatThrownBy(() -> kelemen.get().forEach(i -> {
+        })).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> pull(kelemen.get())).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void producerCatchingTheEndOfPushedElementsYieldsNoMore() {
+        List<Supplier<GeneratorService<Integer>>> generators = List.of(
+                () -> Generators.newRunnableGenerator(PushModeTest::produceCatchingNull),
+                () -> Generators.newMvySnyGenerator(y -> produceCatchingNull(y::yield)),
+                () -> Generators.newGenerator(GeneratorBackend.CUSTOM_SCHEDULER, PushModeTest::produceCatchingNull));
+        for (Supplier<GeneratorService<Integer>> generator : generators) {
+            List<Integer> pushed = new ArrayList<>();
+            generator.get().forEach(pushed::add);
+            assertThat(pushed).containsExactly(0, 1);
+        }
+    }
+
+    private static void produceCatchingNull(Generators.Yieldable<Integer> y) {
+        y.yield(0);
+        y.yield(1);
+        try {
+            y.yield(null);
+        } catch (RuntimeException e) {
+            // carries on regardless
+        }
+        try {
+            y.yield(3);
+        } catch (RuntimeException e) {
+            // carries on regardless
+        }
+    }
+
+    @Test
+    void everyIteratorRunsTheProducerAgain() {
+        List<GeneratorService<Integer>> generators = new ArrayList<>(generators());
+        generators.add(Generators.newPooledRunnableGenerator(this::produce));
+        generators.add(Generators.newGenerator(GeneratorBackend.CUSTOM_SCHEDULER, this::produce));
+        generators.add(Generators.newRunnableGenerator(this::produce).map(i -> i * 2).map(i -> i / 2));
+        generators.add(Generators.newIntGenerator(y -> {
+            for (int i = 0; i < 5; i++) {
+                y.yieldInt(i);
+            }
+        }));
+        for (GeneratorService<Integer> g : generators) {
+            List<Integer> pushed = new ArrayList<>();
+            g.forEach(pushed::add);
+            assertThat(pushed).containsExactly(0, 1, 2, 3, 4);
+            assertThat(pull(g)).containsExactly(0, 1, 2, 3, 4);
+            assertThat(g.stream().collect(Collectors.toList())).containsExactly(0, 1, 2, 3, 4);
+            assertThat(pull(g)).containsExactly(0, 1, 2, 3, 4);
+        }
+    }
+
+    @Test
+    void terminalStreamOperationPushes() {
+        for (GeneratorService<Integer> g : generators()) {
+            assertThat(g.stream().map(i -> i * 2).collect(Collectors.toList())).containsExactly(0, 2, 4, 6, 8);
+        }
+        assertThat(producerThreads).containsOnly(Thread.currentThread());
+    }
+
+    @Test
+    void forEachRemainingContinuesPulledGenerator() {
+        for (GeneratorService<Integer> g : generators()) {
+            Iterator<Integer> it = g.iterator();
+            assertThat(it.next()).isEqualTo(0);
+
+            List<Integer> rest = new ArrayList<>();
+            it.forEachRemaining(rest::add);
+            assertThat(rest).containsExactly(1, 2, 3, 4);
+            assertThat(it.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    void primitiveForEachPushes() {
+        List<Integer> result = new ArrayList<>();
+        Generators.newIntGenerator(y -> {
+            producerThreads.add(Thread.currentThread());
+            y.yieldInt(1);
+            y.yieldInt(2);
+        }).forEachInt(result::add);
+
+        assertThat(result).containsExactly(1, 2);
+        assertThat(producerThreads).containsExactly(Thread.currentThread());
+    }
+}
@@ -0,0 +1,52 @@
+package loom.generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RingBufferGeneratorTest {
+
+    @Test
+    void deliversElementsInOrder() {
+        for (int capacity : new int[]{1, 3, 64}) {
+            GeneratorService<Integer> g = Generators.newRingBufferGenerator(y -> {
+                for (int i = 0; i < 1000; i++) {
+                    y.accept(i);
+                }
+            }, capacity);
+
+            List<Integer> result = new ArrayList<>();
+            for (Integer i : g) {
+                result.add(i);
+            }
+            assertThat(result).isEqualTo(IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void failureIsThrownAfterProducedElements() {
+        GeneratorService<Integer> g = Generators.newRingBufferGenerator(y -> {
+            y.accept(1);
+            y.accept(2);
+            throw new IllegalStateException("boom");
+        }, 16);
+
+        Iterator<Integer> it = g.iterator();
+        assertThat(it.next()).isEqualTo(1);
+        assertThat(it.next()).isEqualTo(2);
+        assertThatThrownBy(it::hasNext).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> Generators.newRingBufferGenerator(y -> y.accept(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
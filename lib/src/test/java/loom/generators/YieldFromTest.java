@@ -0,0 +1,163 @@
+package loom.generators;
+
+import loom.generators.mvysny.Coroutine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class YieldFromTest {
+
+    /**
+     * Yields the numbers from <code>from</code> (inclusive) to <code>to</code> (exclusive) in order, by recursively
+     * delegating both halves to nested generators.
+     */
+    private static GeneratorService<Integer> range(int from, int to, int bufferSize) {
+        return Generators.newRunnableGenerator(y -> yieldRange(y, from, to, bufferSize), bufferSize);
+    }
+
+    private static void yieldRange(Generators.Yieldable<Integer> y, int from, int to, int bufferSize) {
+        if (to - from == 1) {
+            y.yield(from);
+        } else if (to > from) {
+            int middle = (from + to) >>> 1;
+            y.yieldFrom(range(from, middle, bufferSize));
+            y.yieldFrom(range(middle, to, bufferSize));
+        }
+        y.flush();
+    }
+
+    private static GeneratorService<Integer> mvysnyRange(int from, int to) {
+        return Generators.newMvySnyGenerator(y -> {
+            if (to - from == 1) {
+                y.yield(from);
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                y.yieldFrom(mvysnyRange(from, middle));
+                y.yieldFrom(mvysnyRange(middle, to));
+            }
+        });
+    }
+
+    private static List<Integer> expected(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    private static <T> List<T> pull(GeneratorService<T> g) {
+        List<T> result = new ArrayList<>();
+        for (T t : g) {
+            result.add(t);
+        }
+        return result;
+    }
+
+    @Test
+    void nestedGeneratorsAreSpliced() {
+        assertThat(pull(range(0, 1000, 1))).isEqualTo(expected(1000));
+        assertThat(pull(range(0, 1000, 16))).isEqualTo(expected(1000));
+        assertThat(pull(mvysnyRange(0, 100))).isEqualTo(expected(100));
+
+        List<Integer> pushed = new ArrayList<>();
+        range(0, 1000, 1).forEach(pushed::add);
+        assertThat(pushed).isEqualTo(expected(1000));
+    }
+
+    @Test
+    void partiallyPulledGeneratorIsDrainedInBatches() {
+        GeneratorService<Integer> inner = Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < 200; i++) {
+                y.yield(i);
+            }
+        });
+        Iterator<Integer> it = inner.iterator();
+        assertThat(it.next()).isZero();
+
+        GeneratorService<Integer> pulled = () -> it;
+        GeneratorService<Integer> outer = Generators.newRunnableGenerator(y -> y.yieldFrom(pulled));
+        assertThat(pull(outer)).isEqualTo(expected(200).subList(1, 200));
+    }
+
+    @Test
+    void flushOfSplicedGeneratorReachesBufferOfOuterOne() {
+        AtomicBoolean afterFlush = new AtomicBoolean();
+        GeneratorService<Integer> inner = Generators.newRunnableGenerator(y -> {
+            y.yield(0);
+            y.flush();
+            afterFlush.set(true);
+            y.yield(1);
+        });
+        Iterator<Integer> it = Generators.<Integer>newRunnableGenerator(y -> y.yieldFrom(inner), 16).iterator();
+
+        assertThat(it.next()).isZero();
+        assertThat(afterFlush).isFalse();
+        assertThat(it.next()).isOne();
+        assertThat(afterFlush).isTrue();
+    }
+
+    @Test
+    void coroutineYieldFromIterable() {
+        GeneratorService<Integer> g = Generators.newMvySnyGenerator((Coroutine.Yielder<Integer> y) -> {
+            y.yield(0);
+            y.yieldFrom(List.of(1, 2));
+            y.yieldFrom(Generators.<Integer>newRunnableGenerator(inner -> inner.yield(3)));
+        });
+        assertThat(pull(g)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void coroutineYieldFromDrainsPartiallyPulledGeneratorInBatches() {
+        AtomicInteger produced = new AtomicInteger();
+        GeneratorService<Integer> inner = Generators.newRunnableGenerator(y -> {
+            for (int i = 0; i < 200; i++) {
+                produced.incrementAndGet();
+                y.yield(i);
+            }
+        });
+        Iterator<Integer> it = inner.iterator();
+        assertThat(it.next()).isZero();
+
+        GeneratorService<Integer> pulled = () -> it;
+        Iterator<Integer> outer = Generators.newMvySnyGenerator((Coroutine.Yielder<Integer> y) -> y.yieldFrom(pulled))
+                .iterator();
+        assertThat(outer.next()).isOne();
+        assertThat(produced.get()).isGreaterThan(64);
+        List<Integer> rest = new ArrayList<>();
+        outer.forEachRemaining(rest::add);
+        assertThat(rest).isEqualTo(expected(200).subList(2, 200));
+    }
+
+    @Test
+    void nullOfCoroutineYieldFromEndsOuterGenerator() {
+        List<Iterable<Integer>> inners = List.of(
+                Generators.newMvySnyGenerator(y -> {
+                    y.yield(1);
+                    y.yield(null);
+                    y.yield(2);
+                }),
+                Generators.newRunnableGenerator(y -> {
+                    y.yield(1);
+                    y.yield(null);
+                    y.yield(2);
+                }),
+                Arrays.asList(1, null, 2));
+        for (Iterable<Integer> inner : inners) {
+            GeneratorService<Integer> outer = Generators.newMvySnyGenerator((Coroutine.Yielder<Integer> y) -> {
+                y.yield(0);
+                y.yieldFrom(inner);
+                y.yield(3);
+            });
+            assertThat(pull(outer)).containsExactly(0, 1);
+            List<Integer> pushed = new ArrayList<>();
+            outer.forEach(pushed::add);
+            assertThat(pushed).containsExactly(0, 1);
+        }
+    }
+}
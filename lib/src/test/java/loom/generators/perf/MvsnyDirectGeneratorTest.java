@@ -0,0 +1,21 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import loom.generators.mvysny.ContinuationInvoker;
+
+public class MvsnyDirectGeneratorTest extends PerformanceTestBase {
+    @Override
+    protected boolean useVirtualThread() {
+        return Boolean.FALSE;
+    }
+
+    @Override
+    GeneratorService<Integer> generator() {
+        return Generators.newMvySnyGenerator(g -> {
+            for(int i=0;i<COUNT;i++) {
+                g.yield(i);
+            }
+        }, ContinuationInvoker.Mode.DIRECT);
+    }
+}
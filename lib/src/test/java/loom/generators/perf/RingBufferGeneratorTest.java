@@ -0,0 +1,15 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+
+public class RingBufferGeneratorTest extends PerformanceTestBase {
+    @Override
+    GeneratorService<Integer> generator() {
+        return Generators.newRingBufferGenerator(g -> {
+            for (int i = 0; i < COUNT; i++) {
+                g.accept(i);
+            }
+        }, 1024);
+    }
+}
@@ -0,0 +1,16 @@
+package loom.generators.perf;
+
+import loom.generators.GeneratorService;
+import loom.generators.Generators;
+import loom.generators.robaho.Generator;
+
+public class RobahoExchangerGeneratorTest extends PerformanceTestBase {
+    @Override
+    GeneratorService<Integer> generator() {
+        return Generators.newRobahoGenerator(g -> {
+            for(int i=0;i<COUNT;i++) {
+                g.yield(i);
+            }
+        }, Generator.Mode.EXCHANGER);
+    }
+}